@@ -0,0 +1,107 @@
+package com.github.argsfxs.deneb.request;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class represents an in-process Gemini server on the loopback interface.<br/>
+ * Every request is answered with a success response containing a fixed body.
+ */
+class LoopbackServer implements AutoCloseable
+{
+    private static final char[] password = "loopback".toCharArray();
+    
+    private final SSLServerSocket serverSocket;
+    
+    private final ExecutorService executor = Executors.newCachedThreadPool( r -> {
+        Thread thread = new Thread( r, "loopback-server" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+    
+    private final byte[] response;
+    
+    LoopbackServer( int bodySize ) throws IOException, GeneralSecurityException
+    {
+        KeyStore keyStore = KeyStore.getInstance( "PKCS12" );
+        try ( InputStream in = LoopbackServer.class.getResourceAsStream( "/loopback.p12" ) )
+        {
+            keyStore.load( in, password );
+        }
+        KeyManagerFactory kmf =
+            KeyManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
+        kmf.init( keyStore, password );
+        SSLContext context = SSLContext.getInstance( "TLSv1.3" );
+        context.init( kmf.getKeyManagers(), null, null );
+        
+        byte[] header = "20 text/gemini; charset=utf-8\r\n".getBytes( StandardCharsets.UTF_8 );
+        response = new byte[ header.length + bodySize ];
+        System.arraycopy( header, 0, response, 0, header.length );
+        for ( int i = header.length; i < response.length; i++ )
+        {
+            response[ i ] = ( byte ) ( i % 80 == 0 ? '\n' : 'a' );
+        }
+        
+        serverSocket = ( SSLServerSocket ) context.getServerSocketFactory().createServerSocket( 0 );
+        executor.execute( this::accept );
+    }
+    
+    int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+    
+    private void accept()
+    {
+        while ( !serverSocket.isClosed() )
+        {
+            try
+            {
+                SSLSocket socket = ( SSLSocket ) serverSocket.accept();
+                executor.execute( () -> serve( socket ) );
+            }
+            catch ( IOException e )
+            {
+                return;
+            }
+        }
+    }
+    
+    private void serve( SSLSocket socket )
+    {
+        try ( socket )
+        {
+            InputStream in = socket.getInputStream();
+            int previous = -1;
+            int current;
+            while ( ( current = in.read() ) != -1 && !( previous == '\r' && current == '\n' ) )
+            {
+                previous = current;
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write( response );
+            out.flush();
+        }
+        catch ( IOException e )
+        {
+            // the client went away
+        }
+    }
+    
+    @Override
+    public void close() throws IOException
+    {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
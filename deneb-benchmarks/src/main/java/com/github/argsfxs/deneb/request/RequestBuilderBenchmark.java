@@ -0,0 +1,51 @@
+package com.github.argsfxs.deneb.request;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building request URLs including the encoding of the query string.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class RequestBuilderBenchmark
+{
+    private String host = "geminiprotocol.net";
+    
+    private String path = "docs/gemtext-specification.gmi";
+    
+    private String query = "launch sequence initiated";
+    
+    @Benchmark
+    public String buildUrl()
+    {
+        return new GeminiRequestBuilder( host ).withPath( path ).buildUrl();
+    }
+    
+    @Benchmark
+    public String buildUrlWithQuery()
+    {
+        return new GeminiRequestBuilder( host ).withPath( path )
+                                               .withQueryString( query )
+                                               .buildUrl();
+    }
+    
+    @Benchmark
+    public GeminiRequest build()
+    {
+        return new GeminiRequestBuilder( host ).withPath( path ).build();
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.options.ClientOptions;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end latency of sending a request to an in-process TLS server on the
+ * loopback interface and reading the complete response.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class SendBenchmark
+{
+    @Param( { "1024", "65536" } )
+    private int bodySize;
+    
+    @Param( { "false", "true" } )
+    private boolean nio;
+    
+    private LoopbackServer server;
+    
+    private GeminiClient client;
+    
+    private GeminiRequest request;
+    
+    @Setup( Level.Trial )
+    public void setUp() throws IOException, GeneralSecurityException
+    {
+        server = new LoopbackServer( bodySize );
+        ClientOptions options = new ClientOptions();
+        options.setNioEnabled( nio );
+        client = new GeminiClient( options );
+        request = new GeminiRequestBuilder( "localhost" ).withPort( server.getPort() )
+                                                         .withPath( "/benchmark.gmi" )
+                                                         .build();
+    }
+    
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        client.close();
+        server.close();
+    }
+    
+    @Benchmark
+    public long send() throws IOException
+    {
+        GeminiSuccessResponse response = ( GeminiSuccessResponse ) client.send( request );
+        long length = 0;
+        byte[] buffer = new byte[ 8192 ];
+        int n;
+        try ( InputStream in = response.getContent() )
+        {
+            while ( ( n = in.read( buffer ) ) != -1 )
+            {
+                length += n;
+            }
+        }
+        return length;
+    }
+}
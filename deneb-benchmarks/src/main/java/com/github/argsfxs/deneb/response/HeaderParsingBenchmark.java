@@ -0,0 +1,121 @@
+package com.github.argsfxs.deneb.response;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Compares reading the response header in bulk with the former byte by byte implementation.<br/>
+ * The locking stream mimics the per call overhead of an SSL socket input stream.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class HeaderParsingBenchmark
+{
+    @Param( { "20 text/gemini; charset=utf-8",
+        "31 gemini://geminiprotocol.net/docs/gemtext-specification.gmi" } )
+    private String header;
+    
+    @Param( { "plain", "locking" } )
+    private String stream;
+    
+    private byte[] response;
+    
+    @Setup
+    public void setUp()
+    {
+        response = ( header + "\r\n# Heading\r\nSome text\r\n" ).getBytes(
+            StandardCharsets.UTF_8 );
+    }
+    
+    @Benchmark
+    public String bulk() throws IOException
+    {
+        return ResponseHeader.read( newStream() ).getHeader();
+    }
+    
+    @Benchmark
+    public String byteByByte() throws IOException
+    {
+        InputStream in = newStream();
+        int previous = -1;
+        int current;
+        StringBuilder headerBuilder = new StringBuilder();
+        while ( ( current = in.read() ) != -1 )
+        {
+            if ( previous == 13 && current == 10 )
+            {
+                break;
+            }
+            if ( previous != -1 )
+            {
+                headerBuilder.append( ( char ) previous );
+            }
+            previous = current;
+        }
+        if ( current == -1 && previous != -1 )
+        {
+            headerBuilder.append( ( char ) previous );
+        }
+        return headerBuilder.toString();
+    }
+    
+    private InputStream newStream()
+    {
+        InputStream in = new ByteArrayInputStream( response );
+        return "locking".equals( stream ) ? new LockingInputStream( in ) : in;
+    }
+    
+    private static class LockingInputStream extends InputStream
+    {
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private final InputStream in;
+        
+        private LockingInputStream( InputStream in )
+        {
+            this.in = in;
+        }
+        
+        @Override
+        public int read() throws IOException
+        {
+            byte[] b = new byte[ 1 ];
+            int n = read( b, 0, 1 );
+            return n == -1 ? -1 : b[ 0 ] & 0xFF;
+        }
+        
+        @Override
+        public int read( byte[] b, int off, int len ) throws IOException
+        {
+            lock.lock();
+            try
+            {
+                return in.read( b, off, len );
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+}
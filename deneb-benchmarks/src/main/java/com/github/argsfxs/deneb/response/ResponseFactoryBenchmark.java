@@ -0,0 +1,47 @@
+package com.github.argsfxs.deneb.response;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures creating responses including header, status and meta parsing.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class ResponseFactoryBenchmark
+{
+    @Param( { "20 text/gemini; charset=utf-8", "31 gemini://geminiprotocol.net/",
+        "51 Not found" } )
+    private String header;
+    
+    private byte[] response;
+    
+    @Setup
+    public void setUp()
+    {
+        response = ( header + "\r\n# Heading\r\n" ).getBytes( StandardCharsets.UTF_8 );
+    }
+    
+    @Benchmark
+    public GeminiResponse create()
+    {
+        return GeminiResponseFactory.create( new ByteArrayInputStream( response ) );
+    }
+}
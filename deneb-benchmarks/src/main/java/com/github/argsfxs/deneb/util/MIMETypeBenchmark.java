@@ -0,0 +1,36 @@
+package com.github.argsfxs.deneb.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing the MIME type of success responses.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class MIMETypeBenchmark
+{
+    @Param( { "text/gemini", "text/gemini; charset=utf-8",
+        "text/plain; charset=\"us-ascii (Plain text)\"; lang=\"en (English)\"" } )
+    private String type;
+    
+    @Benchmark
+    public MIMEType from()
+    {
+        return MIMEType.from( type );
+    }
+}
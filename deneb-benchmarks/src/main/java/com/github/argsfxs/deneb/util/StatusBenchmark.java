@@ -0,0 +1,50 @@
+package com.github.argsfxs.deneb.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the classification of response headers and status codes.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Warmup( iterations = 3, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Thread )
+public class StatusBenchmark
+{
+    @Param( { "20 text/gemini", "44 60", "48", "59 Bad request" } )
+    private String header;
+    
+    private int code;
+    
+    @Setup
+    public void setup()
+    {
+        code = Integer.parseInt( header.substring( 0, 2 ) );
+    }
+    
+    @Benchmark
+    public Status fromHeader()
+    {
+        return Status.fromHeader( header );
+    }
+    
+    @Benchmark
+    public Status fromCode()
+    {
+        return Status.fromCode( code );
+    }
+}
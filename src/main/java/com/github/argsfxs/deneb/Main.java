@@ -1,81 +1,40 @@
 package com.github.argsfxs.deneb;
 
+import com.github.argsfxs.deneb.gemtext.GemtextParser;
 import com.github.argsfxs.deneb.options.RequestOptions;
 import com.github.argsfxs.deneb.request.GeminiRequest;
 import com.github.argsfxs.deneb.request.GeminiRequestBuilder;
 import com.github.argsfxs.deneb.response.GeminiResponse;
 import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
-import com.github.argsfxs.deneb.security.TrustedCertificate;
-import com.github.argsfxs.deneb.security.TrustedCertificateConsumer;
-import com.github.argsfxs.deneb.security.TrustedCertificateSupplier;
+import com.github.argsfxs.deneb.security.TrustedCertificateStore;
 
-import java.io.*;
-import java.util.HashMap;
+import java.nio.file.Paths;
 
 public class Main
 {
-    private static final TrustedCertificateConsumer tcc = trustedCertificate -> {
-        HashMap<Object, Object> certMap = new HashMap<>();
-        certMap.put( String.format( "%s:%d", trustedCertificate.getHost(),
-            trustedCertificate.getPort() ), trustedCertificate );
-        try
-        {
-            FileOutputStream fileOutputStream = new FileOutputStream( "db" +
-                ".obj" );
-            ObjectOutputStream objectOutputStream
-                = new ObjectOutputStream( fileOutputStream );
-            objectOutputStream.writeObject( certMap );
-            objectOutputStream.flush();
-            objectOutputStream.close();
-        }
-        catch ( IOException e )
-        {
-            throw new RuntimeException( e );
-        }
-    };
-    
-    private static final TrustedCertificateSupplier tcs = ( hostname, port ) -> {
-        try
-        {
-            FileInputStream fileInputStream = new FileInputStream( "db.obj" );
-            ObjectInputStream objectInputStream
-                = new ObjectInputStream( fileInputStream );
-            HashMap<String, TrustedCertificate> certMap = ( HashMap<String,
-                TrustedCertificate> ) objectInputStream.readObject();
-            objectInputStream.close();
-            return certMap.get( String.format( "%s:%d", hostname, port ) );
-        }
-        catch ( ClassNotFoundException | IOException e )
-        {
-            return null;
-        }
-    };
-    
-    
-    public static void main( String[] args ) throws IOException
+    public static void main( String[] args )
     {
-        new File( "db.obj" ).createNewFile();
-        RequestOptions options = new RequestOptions();
-        options.setValidationEnabled( true );
-        options.setCertificateRenewalCheckEnabled( true );
-        options.setTrustedCertificateConsumer( tcc );
-        options.setTrustedCertificateSupplier( tcs );
-        
-        GeminiRequest request = new GeminiRequestBuilder( "geminiprotocol" +
-            ".net", options ).withPath( "docs/gemtext-specification.gmi" ).build();
-        GeminiResponse response = request.send();
-        
-        System.out.println( response.getHeader() );
-        System.out.println( response.getStatus() );
-        System.out.println();
-        if ( response instanceof GeminiSuccessResponse )
+        try ( TrustedCertificateStore store =
+            new TrustedCertificateStore( Paths.get( "known_hosts" ) ) )
         {
-            BufferedReader in = new BufferedReader(
-                new InputStreamReader( ( ( GeminiSuccessResponse ) response ).getContent() ) );
-            String line;
-            while ( ( line = in.readLine() ) != null )
+            RequestOptions options = new RequestOptions();
+            options.setValidationEnabled( true );
+            options.setCertificateRenewalCheckEnabled( true );
+            options.setTrustedCertificateConsumer( store );
+            options.setTrustedCertificateSupplier( store );
+            
+            GeminiRequest request = new GeminiRequestBuilder( "geminiprotocol" +
+                ".net", options ).withPath( "docs/gemtext-specification.gmi" ).build();
+            try ( GeminiResponse response = request.send() )
             {
-                System.out.println( line );
+                System.out.println( response.getHeader() );
+                System.out.println( response.getStatus() );
+                System.out.println();
+                if ( response instanceof GeminiSuccessResponse )
+                {
+                    new GemtextParser( ( GeminiSuccessResponse ) response )
+                        .forEach( System.out::println );
+                }
             }
         }
         
@@ -0,0 +1,70 @@
+package com.github.argsfxs.deneb.cache;
+
+import com.github.argsfxs.deneb.response.TransferableContent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class represents an input stream reading from a {@link ByteBuffer}.<br/>
+ * Reading from a memory-mapped buffer copies the data straight from the page cache, transferring
+ * it to a channel doesn't copy it into the heap at all.
+ */
+class ByteBufferInputStream extends InputStream implements TransferableContent
+{
+    private final ByteBuffer buffer;
+    
+    ByteBufferInputStream( ByteBuffer buffer )
+    {
+        this.buffer = buffer;
+    }
+    
+    @Override
+    public int read()
+    {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+    
+    @Override
+    public int read( byte[] b, int off, int len )
+    {
+        if ( len == 0 )
+        {
+            return 0;
+        }
+        if ( !buffer.hasRemaining() )
+        {
+            return -1;
+        }
+        int length = Math.min( len, buffer.remaining() );
+        buffer.get( b, off, length );
+        return length;
+    }
+    
+    @Override
+    public long skip( long n )
+    {
+        int length = ( int ) Math.max( 0, Math.min( n, buffer.remaining() ) );
+        buffer.position( buffer.position() + length );
+        return length;
+    }
+    
+    @Override
+    public int available()
+    {
+        return buffer.remaining();
+    }
+    
+    @Override
+    public long transferTo( WritableByteChannel target ) throws IOException
+    {
+        long transferred = 0;
+        while ( buffer.hasRemaining() )
+        {
+            transferred += target.write( buffer );
+        }
+        return transferred;
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.argsfxs.deneb.cache;
+
+import com.github.argsfxs.deneb.response.TransferableContent;
+import com.github.argsfxs.deneb.util.ChannelCopy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.function.Consumer;
+
+/**
+ * This class represents a content stream which keeps a copy of the bytes read.<br/>
+ * When the end of the stream is reached, the copy is passed to a consumer. Content exceeding the
+ * maximum size is not copied, the same applies if the stream is closed before its end.<br/>
+ * Content transferred to a channel is copied while it is written, so the transfer still happens
+ * straight from the buffers of the wrapped stream.
+ */
+class CachingInputStream extends FilterInputStream implements TransferableContent
+{
+    private final int maxSize;
+    
+    private final Consumer<byte[]> onComplete;
+    
+    private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+    
+    CachingInputStream( InputStream in, int maxSize, Consumer<byte[]> onComplete )
+    {
+        super( in );
+        this.maxSize = maxSize;
+        this.onComplete = onComplete;
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        int b = super.read();
+        if ( b == -1 )
+        {
+            complete();
+        }
+        else if ( copy != null )
+        {
+            copy.write( b );
+            checkSize();
+        }
+        return b;
+    }
+    
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        int n = super.read( b, off, len );
+        if ( n == -1 )
+        {
+            complete();
+        }
+        else if ( copy != null )
+        {
+            copy.write( b, off, n );
+            checkSize();
+        }
+        return n;
+    }
+    
+    @Override
+    public long skip( long n ) throws IOException
+    {
+        // skipped bytes are missing in the copy
+        copy = null;
+        return super.skip( n );
+    }
+    
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+    
+    @Override
+    public long transferTo( WritableByteChannel target ) throws IOException
+    {
+        if ( !( in instanceof TransferableContent ) )
+        {
+            return ChannelCopy.copy( this, target );
+        }
+        long transferred = ( ( TransferableContent ) in ).transferTo( new WritableByteChannel()
+        {
+            @Override
+            public int write( ByteBuffer src ) throws IOException
+            {
+                int position = src.position();
+                int n = target.write( src );
+                if ( copy != null && n > 0 )
+                {
+                    ByteBuffer written = src.duplicate();
+                    written.position( position ).limit( position + n );
+                    if ( written.hasArray() )
+                    {
+                        copy.write( written.array(), written.arrayOffset() + position, n );
+                    }
+                    else
+                    {
+                        byte[] bytes = new byte[ n ];
+                        written.get( bytes );
+                        copy.write( bytes, 0, n );
+                    }
+                    checkSize();
+                }
+                return n;
+            }
+            
+            @Override
+            public boolean isOpen()
+            {
+                return target.isOpen();
+            }
+            
+            @Override
+            public void close() throws IOException
+            {
+                target.close();
+            }
+        } );
+        complete();
+        return transferred;
+    }
+    
+    private void checkSize()
+    {
+        if ( copy.size() > maxSize )
+        {
+            copy = null;
+        }
+    }
+    
+    private void complete()
+    {
+        if ( copy != null )
+        {
+            onComplete.accept( copy.toByteArray() );
+            copy = null;
+        }
+    }
+}
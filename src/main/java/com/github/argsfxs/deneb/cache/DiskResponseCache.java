@@ -0,0 +1,446 @@
+package com.github.argsfxs.deneb.cache;
+
+import com.github.argsfxs.deneb.exception.CacheException;
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.util.Status;
+import com.github.argsfxs.deneb.util.UrlNormalizer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>This class represents a response cache stored on disk.</p>
+ * <p>Responses are appended to segment files in a directory and served from memory-mapped
+ * buffers, so the content is read from the page cache instead of the heap. The index of the
+ * stored responses is rebuilt from the segment files when the cache is opened, thus cached
+ * responses survive restarts.</p>
+ * <p>Responses are looked up by the normalized request URL. Success responses are stored once
+ * their content has been read completely by the caller, the responses {@link Status#NOT_FOUND}
+ * and {@link Status#GONE} are stored with a separate time to live. When the total size exceeds
+ * the maximum size, the oldest segment is deleted.</p>
+ * <p>Records which have been superseded by a newer record for the same URL or have expired are
+ * counted per segment. Once they make up half of a segment which is no longer written to, the
+ * remaining records are copied to the current segment and the segment is deleted.</p>
+ */
+public class DiskResponseCache implements ResponseCache, AutoCloseable
+{
+    private static final Logger logger = LogManager.getLogger( DiskResponseCache.class );
+    
+    // "DNB1"
+    private static final int MAGIC = 0x444E4231;
+    
+    // magic, key length, header length, expiry, content length
+    private static final int RECORD_OVERHEAD = 4 + 4 + 4 + 8 + 4;
+    
+    private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    
+    private static final String SEGMENT_PREFIX = "segment-";
+    
+    private static final String SEGMENT_SUFFIX = ".dat";
+    
+    private final Path directory;
+    
+    private final long maxSize;
+    
+    private final long segmentSize;
+    
+    private final int maxEntrySize;
+    
+    private final long successTtl;
+    
+    private final long failureTtl;
+    
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    
+    private long size;
+    
+    private boolean closed;
+    
+    /**
+     * Opens a cache of 1 GiB in the given directory, storing success responses for five minutes
+     * and failures for one minute.
+     *
+     * @param directory the directory of the segment files, it is created if necessary
+     */
+    public DiskResponseCache( Path directory )
+    {
+        this( directory, 1024L * 1024 * 1024, 300, 60 );
+    }
+    
+    /**
+     * Opens a cache in the given directory.
+     *
+     * @param directory  the directory of the segment files, it is created if necessary
+     * @param maxSize    the maximum total size of the segment files in bytes
+     * @param successTtl the number of seconds success responses are stored, <code>0</code>
+     *                   disables caching them
+     * @param failureTtl the number of seconds {@link Status#NOT_FOUND} and {@link Status#GONE}
+     *                   responses are stored, <code>0</code> disables caching them
+     */
+    public DiskResponseCache( Path directory, long maxSize, int successTtl, int failureTtl )
+    {
+        this( directory, maxSize, Math.min( DEFAULT_SEGMENT_SIZE, Math.max( 1, maxSize / 4 ) ),
+            successTtl, failureTtl );
+    }
+    
+    DiskResponseCache( Path directory, long maxSize, long segmentSize, int successTtl,
+        int failureTtl )
+    {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.segmentSize = segmentSize;
+        this.maxEntrySize = ( int ) Math.min( Integer.MAX_VALUE - 8, segmentSize );
+        this.successTtl = TimeUnit.SECONDS.toMillis( successTtl );
+        this.failureTtl = TimeUnit.SECONDS.toMillis( failureTtl );
+        try
+        {
+            Files.createDirectories( directory );
+            load();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't open cache directory {}: {}", directory, e.getMessage() );
+            close();
+            throw new CacheException( e );
+        }
+    }
+    
+    @Override
+    public GeminiResponse get( GeminiRequest request )
+    {
+        String key = key( request );
+        Location location = index.get( key );
+        if ( location == null )
+        {
+            return null;
+        }
+        if ( System.currentTimeMillis() >= location.expiry )
+        {
+            if ( index.remove( key, location ) )
+            {
+                location.segment.supersede( location.recordLength );
+            }
+            return null;
+        }
+        ByteBuffer content;
+        try
+        {
+            content = location.segment.slice( location.offset, location.length );
+        }
+        catch ( IOException e )
+        {
+            // the segment has been deleted in the meantime
+            index.remove( key, location );
+            return null;
+        }
+        return GeminiResponseFactory.create( location.header,
+            new ByteBufferInputStream( content ) );
+    }
+    
+    @Override
+    public GeminiResponse put( GeminiRequest request, GeminiResponse response )
+    {
+        Status status = response.getStatus();
+        if ( ( status == Status.NOT_FOUND || status == Status.GONE ) && failureTtl > 0 )
+        {
+            store( key( request ), response.getHeader(), new byte[ 0 ], failureTtl );
+            return response;
+        }
+        if ( response instanceof GeminiSuccessResponse && successTtl > 0 )
+        {
+            String key = key( request );
+            String header = response.getHeader();
+            InputStream content = new CachingInputStream(
+                ( ( GeminiSuccessResponse ) response ).getContent(), maxEntrySize,
+                bytes -> store( key, header, bytes, successTtl ) );
+            return GeminiResponseFactory.create( header, content );
+        }
+        return response;
+    }
+    
+    /**
+     * Returns the total size of the segment files.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long size()
+    {
+        return size;
+    }
+    
+    /**
+     * Closes the segment files. Responses which have already been returned can still be read.
+     */
+    @Override
+    public synchronized void close()
+    {
+        closed = true;
+        index.clear();
+        for ( Segment segment : segments )
+        {
+            try
+            {
+                segment.close();
+            }
+            catch ( IOException e )
+            {
+                logger.error( "Couldn't close cache segment: {}", e.getMessage() );
+            }
+        }
+        segments.clear();
+    }
+    
+    private synchronized void store( String key, String header, byte[] content, long ttl )
+    {
+        if ( closed )
+        {
+            return;
+        }
+        try
+        {
+            Location previous = append( key, header, ByteBuffer.wrap( content ),
+                System.currentTimeMillis() + ttl );
+            evict();
+            if ( previous != null && isCompactable( previous.segment ) )
+            {
+                compact( previous.segment );
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't write to cache: {}", e.getMessage() );
+        }
+    }
+    
+    /**
+     * Appends a record to the current segment and adds it to the index.
+     *
+     * @return the location of the record superseded by the new one or <code>null</code>
+     */
+    private Location append( String key, String header, ByteBuffer content, long expiry )
+        throws IOException
+    {
+        byte[] keyBytes = key.getBytes( StandardCharsets.UTF_8 );
+        byte[] headerBytes = header.getBytes( StandardCharsets.UTF_8 );
+        int length = content.remaining();
+        ByteBuffer record = ByteBuffer.allocate(
+            RECORD_OVERHEAD + keyBytes.length + headerBytes.length );
+        record.putInt( MAGIC ).putInt( keyBytes.length ).put( keyBytes )
+            .putInt( headerBytes.length ).put( headerBytes ).putLong( expiry )
+            .putInt( length ).flip();
+        Segment segment = segments.peekLast();
+        if ( segment == null || segment.getLength() > 0
+            && segment.getLength() + record.remaining() + length > segmentSize )
+        {
+            if ( segment != null )
+            {
+                // nothing is appended to the segment anymore
+                segment.trim();
+            }
+            segment = openSegment( segment == null ? 0 : segment.getId() + 1 );
+        }
+        long offset = segment.append( record, content );
+        size += record.limit() + length;
+        Location previous = index.put( key, new Location( segment, offset + record.limit(),
+            length, record.limit() + length, header, expiry ) );
+        if ( previous != null )
+        {
+            previous.segment.supersede( previous.recordLength );
+        }
+        return previous;
+    }
+    
+    private boolean isCompactable( Segment segment )
+    {
+        return segment != segments.peekLast() && segments.contains( segment )
+            && segment.getSuperseded() * 2 >= segment.getLength();
+    }
+    
+    /**
+     * Copies the records of a segment which are still in use to the current segment and deletes
+     * the segment.
+     */
+    private void compact( Segment segment ) throws IOException
+    {
+        segments.remove( segment );
+        long now = System.currentTimeMillis();
+        for ( Map.Entry<String, Location> entry : index.entrySet() )
+        {
+            Location location = entry.getValue();
+            if ( location.segment == segment && location.expiry > now )
+            {
+                append( entry.getKey(), location.header,
+                    segment.slice( location.offset, location.length ), location.expiry );
+            }
+        }
+        index.values().removeIf( location -> location.segment == segment );
+        size -= segment.getLength();
+        segment.delete();
+        evict();
+    }
+    
+    private void evict() throws IOException
+    {
+        while ( size > maxSize && segments.size() > 1 )
+        {
+            Segment oldest = segments.pollFirst();
+            index.values().removeIf( location -> location.segment == oldest );
+            size -= oldest.getLength();
+            oldest.delete();
+        }
+    }
+    
+    private Segment openSegment( int id ) throws IOException
+    {
+        Segment segment = new Segment( id,
+            directory.resolve( String.format( "%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX ) ),
+            segmentSize );
+        segments.addLast( segment );
+        return segment;
+    }
+    
+    private void load() throws IOException
+    {
+        List<Integer> ids = new ArrayList<>();
+        try ( DirectoryStream<Path> files = Files.newDirectoryStream( directory,
+            SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX ) )
+        {
+            for ( Path file : files )
+            {
+                String name = file.getFileName().toString();
+                try
+                {
+                    ids.add( Integer.parseInt( name.substring( SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length() ) ) );
+                }
+                catch ( NumberFormatException e )
+                {
+                    logger.error( "Ignoring unknown file in cache directory: {}", name );
+                }
+            }
+        }
+        ids.sort( null );
+        for ( int id : ids )
+        {
+            Segment segment = openSegment( id );
+            scan( segment );
+            segment.trim();
+            size += segment.getLength();
+        }
+        evict();
+    }
+    
+    private void scan( Segment segment ) throws IOException
+    {
+        long now = System.currentTimeMillis();
+        ByteBuffer buffer = segment.slice( 0, ( int ) segment.getLength() );
+        int valid = 0;
+        while ( buffer.remaining() >= RECORD_OVERHEAD && buffer.getInt() == MAGIC )
+        {
+            int start = buffer.position() - 4;
+            byte[] key = next( buffer );
+            byte[] header = key == null ? null : next( buffer );
+            if ( header == null || buffer.remaining() < 12 )
+            {
+                break;
+            }
+            long expiry = buffer.getLong();
+            int length = buffer.getInt();
+            if ( length < 0 || length > buffer.remaining() )
+            {
+                break;
+            }
+            String url = new String( key, StandardCharsets.UTF_8 );
+            int recordLength = buffer.position() - start + length;
+            Location previous;
+            if ( expiry > now )
+            {
+                previous = index.put( url, new Location( segment, buffer.position(), length,
+                    recordLength, new String( header, StandardCharsets.UTF_8 ), expiry ) );
+            }
+            else
+            {
+                previous = index.remove( url );
+                segment.supersede( recordLength );
+            }
+            if ( previous != null )
+            {
+                previous.segment.supersede( previous.recordLength );
+            }
+            buffer.position( buffer.position() + length );
+            valid = buffer.position();
+        }
+        if ( valid < segment.getLength() )
+        {
+            // the last record has not been written completely
+            logger.error( "Truncating incomplete cache segment {}", segment.getId() );
+            segment.truncate( valid );
+        }
+    }
+    
+    private static byte[] next( ByteBuffer buffer )
+    {
+        if ( buffer.remaining() < 4 )
+        {
+            return null;
+        }
+        int length = buffer.getInt();
+        if ( length < 0 || length > buffer.remaining() )
+        {
+            return null;
+        }
+        byte[] bytes = new byte[ length ];
+        buffer.get( bytes );
+        return bytes;
+    }
+    
+    private static String key( GeminiRequest request )
+    {
+        return UrlNormalizer.normalize( request.getUrl(), request.getPort() );
+    }
+    
+    private static class Location
+    {
+        private final Segment segment;
+        
+        private final long offset;
+        
+        private final int length;
+        
+        private final int recordLength;
+        
+        private final String header;
+        
+        private final long expiry;
+        
+        private Location( Segment segment, long offset, int length, int recordLength,
+            String header, long expiry )
+        {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.recordLength = recordLength;
+            this.header = header;
+            this.expiry = expiry;
+        }
+    }
+}
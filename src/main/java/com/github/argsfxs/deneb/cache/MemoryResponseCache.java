@@ -0,0 +1,175 @@
+package com.github.argsfxs.deneb.cache;
+
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.util.Status;
+import com.github.argsfxs.deneb.util.UrlNormalizer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>This class represents a response cache on the heap.</p>
+ * <p>Success responses are stored once their content has been read completely by the caller.
+ * The responses {@link Status#NOT_FOUND} and {@link Status#GONE} are stored as well, with a
+ * separate time to live. Responses are looked up by the normalized request URL.</p>
+ * <p>The least recently used responses are evicted once the total size of the stored content
+ * exceeds the maximum size. Content larger than a quarter of the maximum size is not cached.</p>
+ */
+public class MemoryResponseCache implements ResponseCache
+{
+    private final long maxSize;
+    
+    private final int maxEntrySize;
+    
+    private final long successTtl;
+    
+    private final long failureTtl;
+    
+    private final Map<String, Entry> entries = new LinkedHashMap<>( 16, 0.75f, true );
+    
+    private long size;
+    
+    /**
+     * Creates a new cache of 64 MiB, storing success responses for five minutes and failures for
+     * one minute.
+     */
+    public MemoryResponseCache()
+    {
+        this( 64L * 1024 * 1024, 300, 60 );
+    }
+    
+    /**
+     * Creates a new cache.
+     *
+     * @param maxSize    the maximum total size of the stored responses in bytes
+     * @param successTtl the number of seconds success responses are stored, <code>0</code>
+     *                   disables caching them
+     * @param failureTtl the number of seconds {@link Status#NOT_FOUND} and {@link Status#GONE}
+     *                   responses are stored, <code>0</code> disables caching them
+     */
+    public MemoryResponseCache( long maxSize, int successTtl, int failureTtl )
+    {
+        this.maxSize = maxSize;
+        this.maxEntrySize = ( int ) Math.min( Integer.MAX_VALUE - 8, maxSize / 4 );
+        this.successTtl = TimeUnit.SECONDS.toNanos( successTtl );
+        this.failureTtl = TimeUnit.SECONDS.toNanos( failureTtl );
+    }
+    
+    @Override
+    public GeminiResponse get( GeminiRequest request )
+    {
+        Entry entry;
+        synchronized ( this )
+        {
+            String key = key( request );
+            entry = entries.get( key );
+            if ( entry == null )
+            {
+                return null;
+            }
+            if ( System.nanoTime() - entry.expiry >= 0 )
+            {
+                remove( key );
+                return null;
+            }
+        }
+        InputStream content = new ByteArrayInputStream(
+            entry.content == null ? new byte[ 0 ] : entry.content );
+        return GeminiResponseFactory.create( entry.header, content );
+    }
+    
+    @Override
+    public GeminiResponse put( GeminiRequest request, GeminiResponse response )
+    {
+        Status status = response.getStatus();
+        if ( ( status == Status.NOT_FOUND || status == Status.GONE ) && failureTtl > 0 )
+        {
+            store( key( request ), new Entry( response.getHeader(), null, failureTtl ) );
+            return response;
+        }
+        if ( response instanceof GeminiSuccessResponse && successTtl > 0 )
+        {
+            String key = key( request );
+            String header = response.getHeader();
+            InputStream content = new CachingInputStream(
+                ( ( GeminiSuccessResponse ) response ).getContent(), maxEntrySize,
+                bytes -> store( key, new Entry( header, bytes, successTtl ) ) );
+            return GeminiResponseFactory.create( header, content );
+        }
+        return response;
+    }
+    
+    /**
+     * Removes all responses from the cache.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        size = 0;
+    }
+    
+    /**
+     * Returns the total size of the stored responses.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long size()
+    {
+        return size;
+    }
+    
+    private synchronized void store( String key, Entry entry )
+    {
+        remove( key );
+        entries.put( key, entry );
+        size += entry.size;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while ( size > maxSize && eldest.hasNext() )
+        {
+            size -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+    
+    private void remove( String key )
+    {
+        Entry removed = entries.remove( key );
+        if ( removed != null )
+        {
+            size -= removed.size;
+        }
+    }
+    
+    private static String key( GeminiRequest request )
+    {
+        return UrlNormalizer.normalize( request.getUrl(), request.getPort() );
+    }
+    
+    private static class Entry
+    {
+        private final String header;
+        
+        private final byte[] content;
+        
+        private final long expiry;
+        
+        private final long size;
+        
+        private Entry( String header, byte[] content, long ttl )
+        {
+            this.header = header;
+            this.content = content;
+            this.expiry = System.nanoTime() + ttl;
+            this.size = header.getBytes( StandardCharsets.UTF_8 ).length
+                + ( content == null ? 0 : content.length );
+        }
+    }
+}
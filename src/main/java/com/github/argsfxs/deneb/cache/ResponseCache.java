@@ -0,0 +1,32 @@
+package com.github.argsfxs.deneb.cache;
+
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+
+/**
+ * This interface is used to cache responses between a
+ * {@link com.github.argsfxs.deneb.request.GeminiClient} and the network.<br/>
+ * Implementations must be thread-safe, since a client can send requests concurrently.
+ */
+public interface ResponseCache
+{
+    /**
+     * Returns the cached response for a request.
+     *
+     * @param request the request about to be sent
+     * @return a response with its own content stream or <code>null</code> if the request has
+     * to be sent to the server
+     */
+    GeminiResponse get( GeminiRequest request );
+    
+    /**
+     * Offers a response received from the server to the cache.<br/>
+     * The content of a success response may be stored while it is being read by the caller, so
+     * the returned response must be used instead of the offered one.
+     *
+     * @param request  the request that has been sent
+     * @param response the response received from the server
+     * @return the response to return to the caller
+     */
+    GeminiResponse put( GeminiRequest request, GeminiResponse response );
+}
@@ -0,0 +1,167 @@
+package com.github.argsfxs.deneb.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class represents an append-only segment file of a {@link DiskResponseCache}.<br/>
+ * The file is memory-mapped for reading. The mapping is renewed when data beyond its end is
+ * requested, which only happens for the segment currently being written. It grows
+ * geometrically up to the maximum segment size, so appending only causes a few mappings. The
+ * file is extended to the size of the mapping and trimmed to its data once no more data is
+ * appended.
+ * <br/>
+ * The segment also keeps track of the bytes of records which have been superseded by newer
+ * records or have expired.
+ */
+class Segment
+{
+    private static final long MIN_MAP_SIZE = 1024 * 1024;
+    
+    private final int id;
+    
+    private final Path path;
+    
+    private final long maxLength;
+    
+    private final FileChannel channel;
+    
+    private volatile MappedByteBuffer map;
+    
+    private long length;
+    
+    private long superseded;
+    
+    Segment( int id, Path path, long maxLength ) throws IOException
+    {
+        this.id = id;
+        this.path = path;
+        this.maxLength = Math.min( Integer.MAX_VALUE, maxLength );
+        this.channel = FileChannel.open( path, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE );
+        this.length = channel.size();
+    }
+    
+    int getId()
+    {
+        return id;
+    }
+    
+    long getLength()
+    {
+        return length;
+    }
+    
+    synchronized long getSuperseded()
+    {
+        return superseded;
+    }
+    
+    /**
+     * Marks the bytes of a record as no longer used.
+     *
+     * @param bytes the size of the record
+     */
+    synchronized void supersede( long bytes )
+    {
+        superseded += bytes;
+    }
+    
+    /**
+     * Returns a read-only view of a region of the segment.
+     *
+     * @param offset the offset of the region
+     * @param size   the size of the region
+     * @return the buffer positioned at the start of the region
+     * @throws IOException when the segment can't be mapped
+     */
+    ByteBuffer slice( long offset, int size ) throws IOException
+    {
+        MappedByteBuffer current = map;
+        if ( current == null || offset + size > current.capacity() )
+        {
+            current = remap( offset + size );
+        }
+        ByteBuffer slice = current.duplicate();
+        slice.position( ( int ) offset );
+        slice.limit( ( int ) offset + size );
+        return slice.slice();
+    }
+    
+    private synchronized MappedByteBuffer remap( long end ) throws IOException
+    {
+        if ( map == null || map.capacity() < end )
+        {
+            long capacity = map == null ? MIN_MAP_SIZE : 2L * map.capacity();
+            // the part of the mapping beyond the data is only read once it has been written
+            map = channel.map( FileChannel.MapMode.READ_ONLY, 0,
+                Math.max( end, Math.min( capacity, maxLength ) ) );
+        }
+        return map;
+    }
+    
+    /**
+     * Appends data to the end of the segment.
+     *
+     * @param buffers the data to append
+     * @return the offset of the data
+     * @throws IOException when writing fails
+     */
+    long append( ByteBuffer... buffers ) throws IOException
+    {
+        long offset = length;
+        long position = length;
+        for ( ByteBuffer buffer : buffers )
+        {
+            while ( buffer.hasRemaining() )
+            {
+                position += channel.write( buffer, position );
+            }
+        }
+        length = position;
+        return offset;
+    }
+    
+    /**
+     * Cuts off an incomplete record at the end of the segment.
+     *
+     * @param length the length of the valid data
+     * @throws IOException when the file can't be truncated
+     */
+    void truncate( long length ) throws IOException
+    {
+        channel.truncate( length );
+        this.length = length;
+        map = null;
+    }
+    
+    /**
+     * Cuts off the space the file has been extended by for the mapping.
+     *
+     * @throws IOException when the file can't be truncated
+     */
+    void trim() throws IOException
+    {
+        if ( channel.size() > length )
+        {
+            channel.truncate( length );
+        }
+    }
+    
+    void close() throws IOException
+    {
+        trim();
+        channel.close();
+    }
+    
+    void delete() throws IOException
+    {
+        channel.close();
+        Files.deleteIfExists( path );
+    }
+}
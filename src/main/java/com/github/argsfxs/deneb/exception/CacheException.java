@@ -0,0 +1,9 @@
+package com.github.argsfxs.deneb.exception;
+
+public class CacheException extends RuntimeException
+{
+    public CacheException( Exception e )
+    {
+        super( e );
+    }
+}
\ No newline at end of file
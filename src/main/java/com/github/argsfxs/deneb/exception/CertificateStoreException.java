@@ -0,0 +1,9 @@
+package com.github.argsfxs.deneb.exception;
+
+public class CertificateStoreException extends RuntimeException
+{
+    public CertificateStoreException( Exception e )
+    {
+        super( e );
+    }
+}
\ No newline at end of file
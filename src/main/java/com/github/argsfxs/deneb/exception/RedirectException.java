@@ -0,0 +1,9 @@
+package com.github.argsfxs.deneb.exception;
+
+public class RedirectException extends RuntimeException
+{
+    public RedirectException( String reason )
+    {
+        super( reason );
+    }
+}
@@ -0,0 +1,84 @@
+package com.github.argsfxs.deneb.gemtext;
+
+/**
+ * This class represents a single parsed line of a gemtext document.
+ */
+public class GemtextLine
+{
+    /**
+     * The line types defined by the gemtext specification.
+     */
+    public enum Type
+    {
+        TEXT,
+        LINK,
+        HEADING,
+        LIST_ITEM,
+        QUOTE,
+        PREFORMAT_TOGGLE,
+        PREFORMATTED
+    }
+    
+    private final Type type;
+    
+    private final String text;
+    
+    private final String url;
+    
+    private final int level;
+    
+    GemtextLine( Type type, String text, String url, int level )
+    {
+        this.type = type;
+        this.text = text;
+        this.url = url;
+        this.level = level;
+    }
+    
+    /**
+     * Returns the type of the line.
+     *
+     * @return the line type
+     */
+    public Type getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Returns the text of the line without its line type prefix.<br/>
+     * For links this is the optional label, for preformat toggles the optional alt text.
+     *
+     * @return the text, which may be empty
+     */
+    public String getText()
+    {
+        return text;
+    }
+    
+    /**
+     * Returns the URL of a link line.
+     *
+     * @return the URL or <code>null</code> if this is no link line
+     */
+    public String getUrl()
+    {
+        return url;
+    }
+    
+    /**
+     * Returns the level (1 to 3) of a heading line.
+     *
+     * @return the heading level or <code>0</code> if this is no heading line
+     */
+    public int getLevel()
+    {
+        return level;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return type + ": " + ( url != null ? url + " " : "" ) + text;
+    }
+}
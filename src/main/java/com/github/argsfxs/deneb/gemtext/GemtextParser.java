@@ -0,0 +1,245 @@
+package com.github.argsfxs.deneb.gemtext;
+
+import com.github.argsfxs.deneb.exception.SocketIOException;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.util.MIMEType;
+import com.github.argsfxs.deneb.util.PullPublisher;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * <p>This class is used to parse gemtext documents incrementally.</p>
+ * <p>The document is read line by line as it arrives, so only the current line is kept in
+ * memory. Lines can be pulled with {@link #next()}, pushed to a callback with
+ * {@link #forEach(Consumer)} or published with {@link #publish(Executor)}.</p>
+ */
+public class GemtextParser
+{
+    private static final Logger logger = LogManager.getLogger( GemtextParser.class );
+    
+    private final BufferedReader reader;
+    
+    // the byte stream the reader decodes, if known
+    private final InputStream in;
+    
+    private boolean preformatted;
+    
+    /**
+     * Creates a new parser reading from a character stream.
+     *
+     * @param reader the gemtext document
+     */
+    public GemtextParser( Reader reader )
+    {
+        this( reader, null );
+    }
+    
+    /**
+     * Creates a new parser reading from a byte stream.
+     *
+     * @param in      the gemtext document
+     * @param charset the charset of the document
+     */
+    public GemtextParser( InputStream in, Charset charset )
+    {
+        this( new InputStreamReader( in, charset ), in );
+    }
+    
+    private GemtextParser( Reader reader, InputStream in )
+    {
+        this.reader = reader instanceof BufferedReader ? ( BufferedReader ) reader :
+            new BufferedReader( reader );
+        this.in = in;
+    }
+    
+    /**
+     * Creates a new parser reading the content of a success response.<br/>
+     * The charset is taken from the MIME type, UTF-8 is used if it is missing or unsupported.
+     *
+     * @param response the success response
+     */
+    public GemtextParser( GeminiSuccessResponse response )
+    {
+        this( response.getContent(), charsetOf( response.getMimeType() ) );
+    }
+    
+    /**
+     * Parses the next line of the document.
+     *
+     * @return the parsed line or <code>null</code> at the end of the document
+     */
+    public GemtextLine next()
+    {
+        String line;
+        try
+        {
+            line = reader.readLine();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Exception while reading gemtext: {}", e.getMessage() );
+            throw new SocketIOException( e );
+        }
+        return line == null ? null : parseLine( line );
+    }
+    
+    /**
+     * Parses the remaining document and passes each line to the handler.
+     *
+     * @param handler the handler for the parsed lines
+     */
+    public void forEach( Consumer<GemtextLine> handler )
+    {
+        GemtextLine line;
+        while ( ( line = next() ) != null )
+        {
+            handler.accept( line );
+        }
+    }
+    
+    /**
+     * Returns a publisher of the remaining lines of the document.<br/>
+     * Lines are parsed on the executor and only as far as the subscriber has requested them.
+     * Cancelling the subscription closes the document.
+     *
+     * @param executor the executor parsing the lines and signalling the subscriber
+     * @return the publisher of the parsed lines, it can only be subscribed to once
+     */
+    public Flow.Publisher<GemtextLine> publish( Executor executor )
+    {
+        return new PullPublisher<>( executor )
+        {
+            @Override
+            protected GemtextLine pull()
+            {
+                return next();
+            }
+            
+            @Override
+            protected void release()
+            {
+                try
+                {
+                    // closing the reader would wait for a blocked read to return, closing the
+                    // byte stream ends it
+                    if ( in != null )
+                    {
+                        in.close();
+                    }
+                    else
+                    {
+                        reader.close();
+                    }
+                }
+                catch ( IOException e )
+                {
+                    logger.error( "Couldn't close gemtext: {}", e.getMessage() );
+                }
+            }
+        };
+    }
+    
+    GemtextLine parseLine( String line )
+    {
+        if ( line.startsWith( "```" ) )
+        {
+            preformatted = !preformatted;
+            return new GemtextLine( GemtextLine.Type.PREFORMAT_TOGGLE,
+                preformatted ? line.substring( 3 ).trim() : "", null, 0 );
+        }
+        if ( preformatted )
+        {
+            return new GemtextLine( GemtextLine.Type.PREFORMATTED, line, null, 0 );
+        }
+        if ( line.startsWith( "=>" ) )
+        {
+            return parseLink( line );
+        }
+        if ( line.startsWith( "#" ) )
+        {
+            int level = 1;
+            while ( level < 3 && level < line.length() && line.charAt( level ) == '#' )
+            {
+                level++;
+            }
+            return new GemtextLine( GemtextLine.Type.HEADING,
+                line.substring( level ).trim(), null, level );
+        }
+        if ( line.startsWith( "* " ) )
+        {
+            return new GemtextLine( GemtextLine.Type.LIST_ITEM, line.substring( 2 ).trim(),
+                null, 0 );
+        }
+        if ( line.startsWith( ">" ) )
+        {
+            return new GemtextLine( GemtextLine.Type.QUOTE, line.substring( 1 ).trim(), null,
+                0 );
+        }
+        return new GemtextLine( GemtextLine.Type.TEXT, line, null, 0 );
+    }
+    
+    private static GemtextLine parseLink( String line )
+    {
+        int length = line.length();
+        int urlStart = 2;
+        while ( urlStart < length && Character.isWhitespace( line.charAt( urlStart ) ) )
+        {
+            urlStart++;
+        }
+        int urlEnd = urlStart;
+        while ( urlEnd < length && !Character.isWhitespace( line.charAt( urlEnd ) ) )
+        {
+            urlEnd++;
+        }
+        if ( urlStart == urlEnd )
+        {
+            // a link line without URL is just text
+            return new GemtextLine( GemtextLine.Type.TEXT, line, null, 0 );
+        }
+        return new GemtextLine( GemtextLine.Type.LINK, line.substring( urlEnd ).trim(),
+            line.substring( urlStart, urlEnd ), 0 );
+    }
+    
+    private static Charset charsetOf( MIMEType mimeType )
+    {
+        String charset = null;
+        if ( mimeType != null )
+        {
+            // parameter names are case-insensitive
+            for ( Map.Entry<String, String> parameter : mimeType.getParameters().entrySet() )
+            {
+                if ( "charset".equalsIgnoreCase( parameter.getKey() ) )
+                {
+                    charset = parameter.getValue();
+                }
+            }
+        }
+        if ( charset == null )
+        {
+            return StandardCharsets.UTF_8;
+        }
+        try
+        {
+            return Charset.forName( charset );
+        }
+        catch ( IllegalCharsetNameException | UnsupportedCharsetException e )
+        {
+            logger.error( "Unsupported charset {}, using UTF-8.", charset );
+            return StandardCharsets.UTF_8;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.github.argsfxs.deneb.metrics;
+
+import com.github.argsfxs.deneb.util.Status;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>This class represents the latency histograms maintained by a client.</p>
+ * <p>The client records the duration of the TLS handshake, the time until the response header
+ * has been received and the throughput of success response content. The time to header is also
+ * broken down by status category, all histograms are also broken down by host. Hosts are tracked
+ * up to a fixed limit, requests to further hosts are only included in the overall
+ * histograms.</p>
+ * <p>Durations are recorded in nanoseconds, the throughput in bytes per second.</p>
+ */
+public class ClientMetrics
+{
+    private static final int MAX_HOSTS = 1024;
+    
+    private final HostMetrics all = new HostMetrics();
+    
+    private final Histogram[] timeToHeaderByStatus = new Histogram[ 10 ];
+    
+    private final Map<String, HostMetrics> hosts = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates new empty histograms.
+     */
+    public ClientMetrics()
+    {
+        for ( int i = 0; i < timeToHeaderByStatus.length; i++ )
+        {
+            timeToHeaderByStatus[ i ] = new Histogram();
+        }
+    }
+    
+    /**
+     * Returns the durations of TLS handshakes.
+     *
+     * @return the histogram in nanoseconds
+     */
+    public Histogram getHandshakeTime()
+    {
+        return all.handshakeTime;
+    }
+    
+    /**
+     * Returns the times from sending a request until its response header has been received.
+     *
+     * @return the histogram in nanoseconds
+     */
+    public Histogram getTimeToHeader()
+    {
+        return all.timeToHeader;
+    }
+    
+    /**
+     * Returns the times until the response header has been received for a status category.
+     *
+     * @param status a status of the category, e.g. {@link Status#SUCCESS} for all 2x responses
+     * @return the histogram in nanoseconds
+     */
+    public Histogram getTimeToHeader( Status status )
+    {
+        return timeToHeaderByStatus[ status.getCode() / 10 ];
+    }
+    
+    /**
+     * Returns the throughput of success response content.
+     *
+     * @return the histogram in bytes per second
+     */
+    public Histogram getThroughput()
+    {
+        return all.throughput;
+    }
+    
+    /**
+     * Returns the histograms of a single host.
+     *
+     * @param host the host as given in the requests
+     * @return the histograms or <code>null</code> if no requests to the host have been recorded
+     */
+    public HostMetrics getHost( String host )
+    {
+        return hosts.get( host );
+    }
+    
+    /**
+     * Resets all histograms and forgets the hosts.
+     */
+    public void reset()
+    {
+        all.reset();
+        for ( Histogram histogram : timeToHeaderByStatus )
+        {
+            histogram.reset();
+        }
+        hosts.clear();
+    }
+    
+    void recordHandshake( String host, long nanos )
+    {
+        all.handshakeTime.record( nanos );
+        HostMetrics metrics = host( host );
+        if ( metrics != null )
+        {
+            metrics.handshakeTime.record( nanos );
+        }
+    }
+    
+    void recordHeader( String host, Status status, long nanos )
+    {
+        all.timeToHeader.record( nanos );
+        timeToHeaderByStatus[ status.getCode() / 10 ].record( nanos );
+        HostMetrics metrics = host( host );
+        if ( metrics != null )
+        {
+            metrics.timeToHeader.record( nanos );
+        }
+    }
+    
+    void recordBody( String host, long bytes, long nanos )
+    {
+        // a body read from a buffer at once may take less than the timer resolution
+        long throughput = ( long ) ( ( double ) bytes * TimeUnit.SECONDS.toNanos( 1 ) /
+            Math.max( nanos, 1 ) );
+        all.throughput.record( throughput );
+        HostMetrics metrics = host( host );
+        if ( metrics != null )
+        {
+            metrics.throughput.record( throughput );
+        }
+    }
+    
+    private HostMetrics host( String host )
+    {
+        HostMetrics metrics = hosts.get( host );
+        if ( metrics == null && hosts.size() < MAX_HOSTS )
+        {
+            metrics = hosts.computeIfAbsent( host, h -> new HostMetrics() );
+        }
+        return metrics;
+    }
+    
+    /**
+     * This class represents the latency histograms of a single host.
+     */
+    public static class HostMetrics
+    {
+        private final Histogram handshakeTime = new Histogram();
+        
+        private final Histogram timeToHeader = new Histogram();
+        
+        private final Histogram throughput = new Histogram();
+        
+        /**
+         * Returns the durations of TLS handshakes.
+         *
+         * @return the histogram in nanoseconds
+         */
+        public Histogram getHandshakeTime()
+        {
+            return handshakeTime;
+        }
+        
+        /**
+         * Returns the times from sending a request until its response header has been received.
+         *
+         * @return the histogram in nanoseconds
+         */
+        public Histogram getTimeToHeader()
+        {
+            return timeToHeader;
+        }
+        
+        /**
+         * Returns the throughput of success response content.
+         *
+         * @return the histogram in bytes per second
+         */
+        public Histogram getThroughput()
+        {
+            return throughput;
+        }
+        
+        private void reset()
+        {
+            handshakeTime.reset();
+            timeToHeader.reset();
+            throughput.reset();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.github.argsfxs.deneb.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>This class represents a histogram of values, e.g. latencies in nanoseconds.</p>
+ * <p>Values are counted in buckets of exponentially growing width, each power of two is split
+ * into 16 buckets, so recorded values are reported with a relative error below 7%. Values up to
+ * 2<sup>44</sup> are distinguished, larger values are counted in the highest bucket.</p>
+ * <p>Recording is lock-free and doesn't allocate. The counters are striped by thread, so threads
+ * recording at the same time rarely touch the same counters. Stripes are only allocated once a
+ * thread records into them.</p>
+ */
+public class Histogram
+{
+    private static final int SUB_BITS = 4;
+    
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    
+    private static final int MAX_EXPONENT = 44;
+    
+    private static final int BUCKETS = ( MAX_EXPONENT - SUB_BITS + 1 ) * SUB_COUNT;
+    
+    // the number of values and their sum are kept behind the buckets
+    private static final int COUNT = BUCKETS;
+    
+    private static final int SUM = BUCKETS + 1;
+    
+    private static final int STRIPES = stripes();
+    
+    private final AtomicReferenceArray<AtomicLongArray> stripes =
+        new AtomicReferenceArray<>( STRIPES );
+    
+    /**
+     * Records a value.
+     *
+     * @param value the value, negative values are recorded as <code>0</code>
+     */
+    public void record( long value )
+    {
+        long v = Math.max( 0, value );
+        AtomicLongArray stripe = stripe();
+        stripe.incrementAndGet( index( v ) );
+        stripe.incrementAndGet( COUNT );
+        stripe.addAndGet( SUM, v );
+    }
+    
+    /**
+     * Returns a snapshot of the values recorded so far.<br/>
+     * Values recorded while the snapshot is taken might be included partially.
+     *
+     * @return the snapshot
+     */
+    public HistogramSnapshot snapshot()
+    {
+        long[] counts = new long[ BUCKETS ];
+        long count = 0;
+        long sum = 0;
+        for ( int s = 0; s < STRIPES; s++ )
+        {
+            AtomicLongArray stripe = stripes.get( s );
+            if ( stripe == null )
+            {
+                continue;
+            }
+            for ( int i = 0; i < BUCKETS; i++ )
+            {
+                counts[ i ] += stripe.get( i );
+            }
+            count += stripe.get( COUNT );
+            sum += stripe.get( SUM );
+        }
+        return new HistogramSnapshot( counts, count, sum );
+    }
+    
+    /**
+     * Resets all counters to zero.<br/>
+     * Values recorded while the histogram is being reset might be kept partially.
+     */
+    public void reset()
+    {
+        for ( int s = 0; s < STRIPES; s++ )
+        {
+            AtomicLongArray stripe = stripes.get( s );
+            if ( stripe == null )
+            {
+                continue;
+            }
+            for ( int i = 0; i < stripe.length(); i++ )
+            {
+                stripe.set( i, 0 );
+            }
+        }
+    }
+    
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value the non-negative value
+     * @return the index of the bucket
+     */
+    static int index( long value )
+    {
+        if ( value < 2 * SUB_COUNT )
+        {
+            return ( int ) value;
+        }
+        int exponent = Math.min( 63 - Long.numberOfLeadingZeros( value ), MAX_EXPONENT - 1 );
+        int shift = exponent - SUB_BITS;
+        long mantissa = Math.min( value >>> shift, 2 * SUB_COUNT - 1 );
+        return shift * SUB_COUNT + ( int ) mantissa;
+    }
+    
+    /**
+     * Returns the highest value counted in a bucket.
+     *
+     * @param index the index of the bucket
+     * @return the highest value of the bucket
+     */
+    static long highestValue( int index )
+    {
+        if ( index < 2 * SUB_COUNT )
+        {
+            return index;
+        }
+        int shift = ( index >> SUB_BITS ) - 1;
+        long mantissa = index - ( long ) shift * SUB_COUNT;
+        return ( ( mantissa + 1 ) << shift ) - 1;
+    }
+    
+    private AtomicLongArray stripe()
+    {
+        int s = ( int ) Thread.currentThread().getId() & ( STRIPES - 1 );
+        AtomicLongArray stripe = stripes.get( s );
+        if ( stripe == null )
+        {
+            stripes.compareAndSet( s, null, new AtomicLongArray( BUCKETS + 2 ) );
+            stripe = stripes.get( s );
+        }
+        return stripe;
+    }
+    
+    private static int stripes()
+    {
+        // a power of two, so a stripe can be picked with a mask
+        int processors = Math.min( Runtime.getRuntime().availableProcessors(), 16 );
+        return Integer.highestOneBit( Math.max( 1, processors ) * 2 - 1 );
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.argsfxs.deneb.metrics;
+
+/**
+ * This class represents the values of a {@link Histogram} at a point in time.<br/>
+ * Percentiles are reported as the highest value of the bucket they fall into.
+ */
+public class HistogramSnapshot
+{
+    private final long[] counts;
+    
+    private final long count;
+    
+    private final long sum;
+    
+    HistogramSnapshot( long[] counts, long count, long sum )
+    {
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+    }
+    
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values
+     */
+    public long getCount()
+    {
+        return count;
+    }
+    
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the exact mean or <code>0</code> if no values have been recorded
+     */
+    public double getMean()
+    {
+        return count == 0 ? 0 : ( double ) sum / count;
+    }
+    
+    /**
+     * Returns the value below or at which the given percentage of the recorded values lie.
+     *
+     * @param percentile the percentile between <code>0</code> and <code>100</code>, e.g.
+     *                   <code>99.9</code>
+     * @return the value or <code>0</code> if no values have been recorded
+     */
+    public long getValueAtPercentile( double percentile )
+    {
+        long total = 0;
+        for ( long c : counts )
+        {
+            total += c;
+        }
+        if ( total == 0 )
+        {
+            return 0;
+        }
+        double p = Math.min( Math.max( percentile, 0 ), 100 );
+        long rank = Math.max( 1, ( long ) Math.ceil( p / 100 * total ) );
+        long seen = 0;
+        for ( int i = 0; i < counts.length; i++ )
+        {
+            seen += counts[ i ];
+            if ( seen >= rank )
+            {
+                return Histogram.highestValue( i );
+            }
+        }
+        return Histogram.highestValue( counts.length - 1 );
+    }
+    
+    /**
+     * Returns the highest recorded value.
+     *
+     * @return the value or <code>0</code> if no values have been recorded
+     */
+    public long getMax()
+    {
+        return getValueAtPercentile( 100 );
+    }
+}
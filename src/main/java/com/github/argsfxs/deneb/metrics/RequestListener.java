@@ -0,0 +1,99 @@
+package com.github.argsfxs.deneb.metrics;
+
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+
+/**
+ * <p>This class represents a listener for the phases of the requests sent by a client.</p>
+ * <p>The events are reported synchronously on the thread driving the request, so listeners have
+ * to be fast and thread-safe. The timestamps are taken with {@link System#nanoTime()} and can
+ * only be compared with each other. All methods do nothing by default, so listeners only need to
+ * implement the events they are interested in. Responses served from a cache are not reported.
+ * Every redirect or retry is reported as a request of its own.</p>
+ */
+public interface RequestListener
+{
+    /**
+     * Called before the server name is resolved.
+     *
+     * @param request  the request
+     * @param nanoTime the timestamp of the event
+     */
+    default void requestStarted( GeminiRequest request, long nanoTime )
+    {
+    }
+    
+    /**
+     * Called when the server name has been resolved.
+     *
+     * @param request  the request
+     * @param nanoTime the timestamp of the event
+     */
+    default void dnsResolved( GeminiRequest request, long nanoTime )
+    {
+    }
+    
+    /**
+     * Called when the TCP connection has been established.
+     *
+     * @param request  the request
+     * @param nanoTime the timestamp of the event
+     */
+    default void connected( GeminiRequest request, long nanoTime )
+    {
+    }
+    
+    /**
+     * Called when the TLS handshake has been completed.
+     *
+     * @param request  the request
+     * @param nanoTime the timestamp of the event
+     */
+    default void handshakeCompleted( GeminiRequest request, long nanoTime )
+    {
+    }
+    
+    /**
+     * Called when the first byte of the response header has been received.
+     *
+     * @param request  the request
+     * @param nanoTime the timestamp of the event
+     */
+    default void firstByteReceived( GeminiRequest request, long nanoTime )
+    {
+    }
+    
+    /**
+     * Called when the response header has been received completely.
+     *
+     * @param request  the request
+     * @param response the response
+     * @param nanoTime the timestamp of the event
+     */
+    default void headerReceived( GeminiRequest request, GeminiResponse response, long nanoTime )
+    {
+    }
+    
+    /**
+     * Called when the end of the content of a success response has been reached.
+     *
+     * @param request  the request
+     * @param bytes    the number of content bytes received, the header is not included
+     * @param nanoTime the timestamp of the event
+     */
+    default void bodyCompleted( GeminiRequest request, long bytes, long nanoTime )
+    {
+    }
+    
+    /**
+     * Called when the request has failed, while it was being sent or the response was being
+     * received.
+     *
+     * @param request  the request
+     * @param error    the cause of the failure
+     * @param nanoTime the timestamp of the event
+     */
+    default void requestFailed( GeminiRequest request, Throwable error, long nanoTime )
+    {
+    }
+}
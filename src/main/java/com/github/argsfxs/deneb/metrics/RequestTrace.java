@@ -0,0 +1,196 @@
+package com.github.argsfxs.deneb.metrics;
+
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+
+import java.io.InputStream;
+
+/**
+ * <p>This class is used by the client and the transports to report the phases of a request to a
+ * {@link RequestListener} and to record them in the {@link ClientMetrics} of the client.</p>
+ * <p>Without a listener and metrics, {@link #NONE} is used, which neither takes timestamps nor
+ * wraps streams, so tracing doesn't cost anything unless it is enabled. Otherwise the trace is
+ * allocated per request, as well as a wrapper of the connection stream if the request is sent by
+ * the blocking transport.</p>
+ */
+public final class RequestTrace
+{
+    /**
+     * The trace used if no listener is set.
+     */
+    public static final RequestTrace NONE = new RequestTrace( null, null, null );
+    
+    private final RequestListener listener;
+    
+    private final ClientMetrics metrics;
+    
+    private final GeminiRequest request;
+    
+    // the timestamps the durations recorded in the metrics are measured from, events may be
+    // reported by different threads
+    private volatile long startedAt;
+    
+    private volatile long connectedAt;
+    
+    private volatile long headerAt;
+    
+    private volatile boolean failed;
+    
+    private RequestTrace( RequestListener listener, ClientMetrics metrics, GeminiRequest request )
+    {
+        this.listener = listener;
+        this.metrics = metrics;
+        this.request = request;
+    }
+    
+    /**
+     * Creates the trace of a request.
+     *
+     * @param listener the listener or <code>null</code> if requests are not traced
+     * @param request  the request
+     * @return the trace of the request
+     */
+    public static RequestTrace of( RequestListener listener, GeminiRequest request )
+    {
+        return of( listener, null, request );
+    }
+    
+    /**
+     * Creates the trace of a request.
+     *
+     * @param listener the listener or <code>null</code> if requests are not traced
+     * @param metrics  the metrics or <code>null</code> if no metrics are collected
+     * @param request  the request
+     * @return the trace of the request
+     */
+    public static RequestTrace of( RequestListener listener, ClientMetrics metrics,
+                                   GeminiRequest request )
+    {
+        if ( listener == null && metrics == null )
+        {
+            return NONE;
+        }
+        return new RequestTrace( listener, metrics, request );
+    }
+    
+    public void started()
+    {
+        if ( this == NONE )
+        {
+            return;
+        }
+        startedAt = System.nanoTime();
+        if ( listener != null )
+        {
+            listener.requestStarted( request, startedAt );
+        }
+    }
+    
+    public void dnsResolved()
+    {
+        if ( listener != null )
+        {
+            listener.dnsResolved( request, System.nanoTime() );
+        }
+    }
+    
+    public void connected()
+    {
+        if ( this == NONE )
+        {
+            return;
+        }
+        connectedAt = System.nanoTime();
+        if ( listener != null )
+        {
+            listener.connected( request, connectedAt );
+        }
+    }
+    
+    public void handshakeCompleted()
+    {
+        if ( this == NONE )
+        {
+            return;
+        }
+        long now = System.nanoTime();
+        if ( metrics != null && connectedAt != 0 )
+        {
+            metrics.recordHandshake( request.getHost(), now - connectedAt );
+        }
+        if ( listener != null )
+        {
+            listener.handshakeCompleted( request, now );
+        }
+    }
+    
+    public void firstByteReceived()
+    {
+        if ( this == NONE )
+        {
+            return;
+        }
+        if ( listener != null )
+        {
+            listener.firstByteReceived( request, System.nanoTime() );
+        }
+    }
+    
+    public void headerReceived( GeminiResponse response )
+    {
+        if ( this == NONE )
+        {
+            return;
+        }
+        long now = System.nanoTime();
+        headerAt = now;
+        if ( metrics != null && startedAt != 0 )
+        {
+            metrics.recordHeader( request.getHost(), response.getStatus(), now - startedAt );
+        }
+        if ( listener != null )
+        {
+            listener.headerReceived( request, response, now );
+        }
+    }
+    
+    public void bodyCompleted( long bytes )
+    {
+        if ( this == NONE )
+        {
+            return;
+        }
+        long now = System.nanoTime();
+        // the content is timed from the header, so the time to header doesn't lower the throughput
+        if ( metrics != null && headerAt != 0 )
+        {
+            metrics.recordBody( request.getHost(), bytes, now - headerAt );
+        }
+        if ( listener != null )
+        {
+            listener.bodyCompleted( request, bytes, now );
+        }
+    }
+    
+    public void failed( Throwable error )
+    {
+        // a failure can surface in several places, it is only reported once
+        if ( listener != null && !failed )
+        {
+            failed = true;
+            listener.requestFailed( request, error, System.nanoTime() );
+        }
+    }
+    
+    /**
+     * Wraps the stream a response is read from, so the first byte and the end of the response
+     * are reported.
+     *
+     * @param in the stream of the connection
+     * @return the wrapped stream or the given stream if requests are not traced
+     */
+    public InputStream wrap( InputStream in )
+    {
+        return this == NONE ? in : new TracingInputStream( in, this );
+    }
+}
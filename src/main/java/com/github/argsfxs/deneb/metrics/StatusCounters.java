@@ -0,0 +1,75 @@
+package com.github.argsfxs.deneb.metrics;
+
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.util.Status;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is used to count the responses received per status category, e.g. all 2x
+ * responses, and the failed requests.<br/>
+ * The counters don't contend between threads, so they can be shared by all requests of a client.
+ */
+public class StatusCounters implements RequestListener
+{
+    private final LongAdder[] responses = new LongAdder[ 10 ];
+    
+    private final LongAdder failures = new LongAdder();
+    
+    /**
+     * Creates new counters starting at zero.
+     */
+    public StatusCounters()
+    {
+        for ( int i = 0; i < responses.length; i++ )
+        {
+            responses[ i ] = new LongAdder();
+        }
+    }
+    
+    @Override
+    public void headerReceived( GeminiRequest request, GeminiResponse response, long nanoTime )
+    {
+        responses[ response.getStatus().getCode() / 10 ].increment();
+    }
+    
+    @Override
+    public void requestFailed( GeminiRequest request, Throwable error, long nanoTime )
+    {
+        failures.increment();
+    }
+    
+    /**
+     * Returns the number of responses in the category of a status.
+     *
+     * @param status a status of the category, e.g. {@link Status#SUCCESS} for all 2x responses
+     * @return the number of responses
+     */
+    public long getCount( Status status )
+    {
+        return responses[ status.getCode() / 10 ].sum();
+    }
+    
+    /**
+     * Returns the number of failed requests.
+     *
+     * @return the number of failures
+     */
+    public long getFailures()
+    {
+        return failures.sum();
+    }
+    
+    /**
+     * Resets all counters to zero.
+     */
+    public void reset()
+    {
+        for ( LongAdder counter : responses )
+        {
+            counter.reset();
+        }
+        failures.reset();
+    }
+}
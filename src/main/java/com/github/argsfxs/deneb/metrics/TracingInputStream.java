@@ -0,0 +1,126 @@
+package com.github.argsfxs.deneb.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class represents a connection stream reporting the first byte received, the end of the
+ * response and read errors to a {@link RequestTrace}.<br/>
+ * Only the bytes following the CRLF of the response header are counted as content.
+ */
+class TracingInputStream extends FilterInputStream
+{
+    private final RequestTrace trace;
+    
+    private boolean started;
+    
+    private boolean headerRead;
+    
+    private int previous = -1;
+    
+    private long bytes;
+    
+    private boolean completed;
+    
+    TracingInputStream( InputStream in, RequestTrace trace )
+    {
+        super( in );
+        this.trace = trace;
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        int b;
+        try
+        {
+            b = super.read();
+        }
+        catch ( IOException e )
+        {
+            trace.failed( e );
+            throw e;
+        }
+        if ( b == -1 )
+        {
+            complete();
+        }
+        else
+        {
+            start();
+            if ( headerRead )
+            {
+                bytes++;
+            }
+            else
+            {
+                scanHeader( b );
+            }
+        }
+        return b;
+    }
+    
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        int n;
+        try
+        {
+            n = super.read( b, off, len );
+        }
+        catch ( IOException e )
+        {
+            trace.failed( e );
+            throw e;
+        }
+        if ( n > 0 )
+        {
+            start();
+            int i = off;
+            while ( !headerRead && i < off + n )
+            {
+                scanHeader( b[ i++ ] & 0xFF );
+            }
+            bytes += off + n - i;
+        }
+        else if ( n == -1 )
+        {
+            complete();
+        }
+        return n;
+    }
+    
+    @Override
+    public long skip( long n ) throws IOException
+    {
+        // skipped bytes are read, so they are counted as well
+        byte[] buffer = new byte[ ( int ) Math.min( n, 8192 ) ];
+        int read = n > 0 ? read( buffer, 0, buffer.length ) : 0;
+        return Math.max( read, 0 );
+    }
+    
+    private void start()
+    {
+        if ( !started )
+        {
+            started = true;
+            trace.firstByteReceived();
+        }
+    }
+    
+    private void scanHeader( int current )
+    {
+        headerRead = previous == '\r' && current == '\n';
+        previous = current;
+    }
+    
+    private void complete()
+    {
+        if ( !completed )
+        {
+            completed = true;
+            trace.bodyCompleted( bytes );
+        }
+    }
+}
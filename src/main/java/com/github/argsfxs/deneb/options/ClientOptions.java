@@ -0,0 +1,297 @@
+package com.github.argsfxs.deneb.options;
+
+import com.github.argsfxs.deneb.cache.ResponseCache;
+import com.github.argsfxs.deneb.metrics.RequestListener;
+
+import java.util.concurrent.Executor;
+
+/**
+ * This class represents options to control the behavior of a client for all requests it sends.
+ */
+public class ClientOptions
+{
+    private Executor executor;
+    
+    private boolean nioEnabled = false;
+    
+    private int selectorThreads = 1;
+    
+    private int receiveBufferSize = 65536;
+    
+    private ResponseCache responseCache;
+    
+    private int maxConnectionsPerHost = 4;
+    
+    private double hostRequestRate = 0;
+    
+    private int hostRequestBurst = 1;
+    
+    private int maxRetries = 0;
+    
+    private int retryBackoff = 1000;
+    
+    private RequestListener requestListener;
+    
+    private boolean metricsEnabled;
+    
+    /**
+     * Retrieves the executor running asynchronous requests.
+     *
+     * @return the executor or <code>null</code> if the default executor is used
+     */
+    public Executor getExecutor()
+    {
+        return executor;
+    }
+    
+    /**
+     * Sets the executor running asynchronous requests.<br/>
+     * If no executor is set, virtual threads are used if available.
+     *
+     * @param executor the executor
+     */
+    public void setExecutor( Executor executor )
+    {
+        this.executor = executor;
+    }
+    
+    /**
+     * Retrieves the option whether the non-blocking transport is used.
+     *
+     * @return <code>true</code> if the non-blocking transport is used, <code>false</code> if
+     * requests are sent using blocking sockets
+     */
+    public boolean isNioEnabled()
+    {
+        return nioEnabled;
+    }
+    
+    /**
+     * Sets the option whether to use the non-blocking transport.<br/>
+     * The non-blocking transport drives all connections from a small number of selector threads.
+     *
+     * @param nioEnabled to enable or disable the non-blocking transport
+     */
+    public void setNioEnabled( boolean nioEnabled )
+    {
+        this.nioEnabled = nioEnabled;
+    }
+    
+    /**
+     * Retrieves the number of selector threads of the non-blocking transport.
+     *
+     * @return the number of selector threads
+     */
+    public int getSelectorThreads()
+    {
+        return selectorThreads;
+    }
+    
+    /**
+     * Sets the number of selector threads of the non-blocking transport.
+     *
+     * @param selectorThreads the number of selector threads
+     */
+    public void setSelectorThreads( int selectorThreads )
+    {
+        this.selectorThreads = selectorThreads;
+    }
+    
+    /**
+     * Retrieves the maximum number of received bytes the non-blocking transport buffers per
+     * connection.<br/>
+     * Reading from the network is paused while the buffer is full.
+     *
+     * @return the buffer size in bytes
+     */
+    public int getReceiveBufferSize()
+    {
+        return receiveBufferSize;
+    }
+    
+    /**
+     * Sets the maximum number of received bytes the non-blocking transport buffers per
+     * connection.
+     *
+     * @param receiveBufferSize the buffer size in bytes
+     */
+    public void setReceiveBufferSize( int receiveBufferSize )
+    {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+    
+    /**
+     * Retrieves the cache for responses.
+     *
+     * @return the response cache or <code>null</code> if responses are not cached
+     */
+    public ResponseCache getResponseCache()
+    {
+        return responseCache;
+    }
+    
+    /**
+     * Sets the cache for responses.<br/>
+     * Cached responses are returned without sending the request to the server.
+     *
+     * @param responseCache the response cache or <code>null</code> to disable caching
+     */
+    public void setResponseCache( ResponseCache responseCache )
+    {
+        this.responseCache = responseCache;
+    }
+    
+    /**
+     * Retrieves the maximum number of requests of a batch sent to the same server at the same
+     * time.
+     *
+     * @return the maximum number of connections per host
+     */
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+    
+    /**
+     * Sets the maximum number of requests of a batch sent to the same server at the same
+     * time.<br/>
+     * The limit applies to {@link com.github.argsfxs.deneb.request.GeminiClient#fetchAll}, a
+     * request counts until its response header has been received.
+     *
+     * @param maxConnectionsPerHost the maximum number of connections per host
+     */
+    public void setMaxConnectionsPerHost( int maxConnectionsPerHost )
+    {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+    
+    /**
+     * Retrieves the number of requests per second sent to the same server.
+     *
+     * @return the request rate per server, <code>0</code> if requests are not rate limited
+     */
+    public double getHostRequestRate()
+    {
+        return hostRequestRate;
+    }
+    
+    /**
+     * Sets the number of requests per second sent to the same server.<br/>
+     * Requests exceeding the rate are delayed until they can be sent.
+     *
+     * @param hostRequestRate the request rate per server, <code>0</code> disables rate limiting
+     */
+    public void setHostRequestRate( double hostRequestRate )
+    {
+        this.hostRequestRate = hostRequestRate;
+    }
+    
+    /**
+     * Retrieves the number of requests that can be sent to the same server at once before the
+     * request rate applies.
+     *
+     * @return the burst size per server
+     */
+    public int getHostRequestBurst()
+    {
+        return hostRequestBurst;
+    }
+    
+    /**
+     * Sets the number of requests that can be sent to the same server at once before the
+     * request rate applies.
+     *
+     * @param hostRequestBurst the burst size per server
+     */
+    public void setHostRequestBurst( int hostRequestBurst )
+    {
+        this.hostRequestBurst = hostRequestBurst;
+    }
+    
+    /**
+     * Retrieves the maximum number of times a request is retried after a temporary failure.
+     *
+     * @return the maximum number of retries
+     */
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+    
+    /**
+     * Sets the maximum number of times a request is retried after a temporary failure
+     * (status 4x).<br/>
+     * A {@link com.github.argsfxs.deneb.util.Status#SLOW_DOWN} response is retried after the
+     * number of seconds requested by the server, which also applies to all other requests to
+     * that server. Other temporary failures are retried with an exponential backoff.
+     *
+     * @param maxRetries the maximum number of retries, <code>0</code> disables retries
+     */
+    public void setMaxRetries( int maxRetries )
+    {
+        this.maxRetries = maxRetries;
+    }
+    
+    /**
+     * Retrieves the delay before the first retry of a request.
+     *
+     * @return the delay in milliseconds
+     */
+    public int getRetryBackoff()
+    {
+        return retryBackoff;
+    }
+    
+    /**
+     * Sets the delay before the first retry of a request. The delay is doubled for every
+     * further retry.
+     *
+     * @param retryBackoff the delay in milliseconds
+     */
+    public void setRetryBackoff( int retryBackoff )
+    {
+        this.retryBackoff = retryBackoff;
+    }
+    
+    /**
+     * Retrieves the listener for the phases of the requests sent.
+     *
+     * @return the listener or <code>null</code> if requests are not traced
+     */
+    public RequestListener getRequestListener()
+    {
+        return requestListener;
+    }
+    
+    /**
+     * Sets the listener for the phases of the requests sent, e.g. to collect metrics.<br/>
+     * Requests are not traced if no listener is set.
+     *
+     * @param requestListener the listener or <code>null</code> to disable tracing
+     */
+    public void setRequestListener( RequestListener requestListener )
+    {
+        this.requestListener = requestListener;
+    }
+    
+    /**
+     * Retrieves whether the client records latency histograms.
+     *
+     * @return <code>true</code> if metrics are collected
+     */
+    public boolean isMetricsEnabled()
+    {
+        return metricsEnabled;
+    }
+    
+    /**
+     * Sets whether the client records latency histograms, which are available from
+     * {@link com.github.argsfxs.deneb.request.GeminiClient#getMetrics()}.
+     *
+     * @param metricsEnabled <code>true</code> to collect metrics
+     */
+    public void setMetricsEnabled( boolean metricsEnabled )
+    {
+        this.metricsEnabled = metricsEnabled;
+    }
+}
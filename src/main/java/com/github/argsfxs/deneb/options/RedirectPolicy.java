@@ -0,0 +1,20 @@
+package com.github.argsfxs.deneb.options;
+
+/**
+ * This enum defines which redirects are followed automatically when a request is being sent.
+ */
+public enum RedirectPolicy
+{
+    /**
+     * Redirects are returned to the caller.
+     */
+    NEVER,
+    /**
+     * Redirects to the same host and port are followed, others are returned to the caller.
+     */
+    SAME_HOST,
+    /**
+     * All redirects to Gemini URLs are followed.
+     */
+    ALWAYS
+}
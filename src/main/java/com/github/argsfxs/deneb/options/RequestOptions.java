@@ -3,6 +3,8 @@ package com.github.argsfxs.deneb.options;
 import com.github.argsfxs.deneb.security.TrustedCertificateConsumer;
 import com.github.argsfxs.deneb.security.TrustedCertificateSupplier;
 
+import java.util.Objects;
+
 /**
  * This class represents options to control the behavior when a request is being sent.
  */
@@ -18,6 +20,57 @@ public class RequestOptions
     
     private int certificateGracePeriod = 90;
     
+    private int sessionCacheSize = 1024;
+    
+    private int sessionTimeout = 86400;
+    
+    private int connectTimeout = 10000;
+    
+    private int handshakeTimeout = 10000;
+    
+    private int readTimeout = 30000;
+    
+    private int requestTimeout = 0;
+    
+    private RedirectPolicy redirectPolicy = RedirectPolicy.NEVER;
+    
+    private int maxRedirects = 5;
+    
+    private long maxContentLength = 0;
+    
+    private int minTransferRate = 0;
+    
+    /**
+     * Creates new request options with default values.
+     */
+    public RequestOptions()
+    {
+    }
+    
+    /**
+     * Creates a copy of the given request options.
+     *
+     * @param options the options to copy
+     */
+    public RequestOptions( RequestOptions options )
+    {
+        this.validationEnabled = options.validationEnabled;
+        this.certificateRenewalCheckEnabled = options.certificateRenewalCheckEnabled;
+        this.tcs = options.tcs;
+        this.tcc = options.tcc;
+        this.certificateGracePeriod = options.certificateGracePeriod;
+        this.sessionCacheSize = options.sessionCacheSize;
+        this.sessionTimeout = options.sessionTimeout;
+        this.connectTimeout = options.connectTimeout;
+        this.handshakeTimeout = options.handshakeTimeout;
+        this.readTimeout = options.readTimeout;
+        this.requestTimeout = options.requestTimeout;
+        this.redirectPolicy = options.redirectPolicy;
+        this.maxRedirects = options.maxRedirects;
+        this.maxContentLength = options.maxContentLength;
+        this.minTransferRate = options.minTransferRate;
+    }
+    
     /**
      * Retrieves the option whether validation of the server certificate is enabled.
      *
@@ -122,4 +175,260 @@ public class RequestOptions
     {
         this.certificateGracePeriod = certificateGracePeriod;
     }
+    
+    /**
+     * Retrieves the maximum number of TLS sessions cached for resumption.<br/>
+     * Sessions are cached per server host and port.
+     *
+     * @return the maximum number of cached sessions, <code>0</code> means no limit
+     */
+    public int getSessionCacheSize()
+    {
+        return sessionCacheSize;
+    }
+    
+    /**
+     * Sets the maximum number of TLS sessions cached for resumption.
+     *
+     * @param sessionCacheSize the maximum number of cached sessions, <code>0</code> means no
+     *                         limit
+     */
+    public void setSessionCacheSize( int sessionCacheSize )
+    {
+        this.sessionCacheSize = sessionCacheSize;
+    }
+    
+    /**
+     * Retrieves the time a cached TLS session can be resumed.
+     *
+     * @return the session timeout in seconds, <code>0</code> means no limit
+     */
+    public int getSessionTimeout()
+    {
+        return sessionTimeout;
+    }
+    
+    /**
+     * Sets the time a cached TLS session can be resumed.
+     *
+     * @param sessionTimeout the session timeout in seconds, <code>0</code> means no limit
+     */
+    public void setSessionTimeout( int sessionTimeout )
+    {
+        this.sessionTimeout = sessionTimeout;
+    }
+    
+    /**
+     * Retrieves the time to wait for the connection to the server to be established.
+     *
+     * @return the connect timeout in milliseconds, <code>0</code> means no limit
+     */
+    public int getConnectTimeout()
+    {
+        return connectTimeout;
+    }
+    
+    /**
+     * Sets the time to wait for the connection to the server to be established.
+     *
+     * @param connectTimeout the connect timeout in milliseconds, <code>0</code> means no limit
+     */
+    public void setConnectTimeout( int connectTimeout )
+    {
+        this.connectTimeout = connectTimeout;
+    }
+    
+    /**
+     * Retrieves the time to wait for the TLS handshake to complete.
+     *
+     * @return the handshake timeout in milliseconds, <code>0</code> means no limit
+     */
+    public int getHandshakeTimeout()
+    {
+        return handshakeTimeout;
+    }
+    
+    /**
+     * Sets the time to wait for the TLS handshake to complete.
+     *
+     * @param handshakeTimeout the handshake timeout in milliseconds, <code>0</code> means no
+     *                         limit
+     */
+    public void setHandshakeTimeout( int handshakeTimeout )
+    {
+        this.handshakeTimeout = handshakeTimeout;
+    }
+    
+    /**
+     * Retrieves the time to wait for data from the server while reading the response header and
+     * content.
+     *
+     * @return the read timeout in milliseconds, <code>0</code> means no limit
+     */
+    public int getReadTimeout()
+    {
+        return readTimeout;
+    }
+    
+    /**
+     * Sets the time to wait for data from the server while reading the response header and
+     * content.
+     *
+     * @param readTimeout the read timeout in milliseconds, <code>0</code> means no limit
+     */
+    public void setReadTimeout( int readTimeout )
+    {
+        this.readTimeout = readTimeout;
+    }
+    
+    /**
+     * Retrieves the deadline of the whole request.<br/>
+     * The connection is closed when the request has not been completed, including reading the
+     * content, within this time after it has been sent.
+     *
+     * @return the request timeout in milliseconds, <code>0</code> means no limit
+     */
+    public int getRequestTimeout()
+    {
+        return requestTimeout;
+    }
+    
+    /**
+     * Sets the deadline of the whole request.
+     *
+     * @param requestTimeout the request timeout in milliseconds, <code>0</code> means no limit
+     */
+    public void setRequestTimeout( int requestTimeout )
+    {
+        this.requestTimeout = requestTimeout;
+    }
+    
+    /**
+     * Retrieves the policy which redirects are followed automatically.
+     *
+     * @return the redirect policy
+     */
+    public RedirectPolicy getRedirectPolicy()
+    {
+        return redirectPolicy;
+    }
+    
+    /**
+     * Sets the policy which redirects are followed automatically.
+     *
+     * @param redirectPolicy the redirect policy
+     */
+    public void setRedirectPolicy( RedirectPolicy redirectPolicy )
+    {
+        this.redirectPolicy = redirectPolicy;
+    }
+    
+    /**
+     * Retrieves the maximum number of redirects followed for a single request.
+     *
+     * @return the maximum number of redirects
+     */
+    public int getMaxRedirects()
+    {
+        return maxRedirects;
+    }
+    
+    /**
+     * Sets the maximum number of redirects followed for a single request.
+     *
+     * @param maxRedirects the maximum number of redirects
+     */
+    public void setMaxRedirects( int maxRedirects )
+    {
+        this.maxRedirects = maxRedirects;
+    }
+    
+    /**
+     * Retrieves the maximum number of content bytes read from a success response.
+     *
+     * @return the maximum content length in bytes, <code>0</code> means no limit
+     */
+    public long getMaxContentLength()
+    {
+        return maxContentLength;
+    }
+    
+    /**
+     * Sets the maximum number of content bytes read from a success response.<br/>
+     * Reading the content fails and the connection is closed when the server sends more.
+     *
+     * @param maxContentLength the maximum content length in bytes, <code>0</code> means no limit
+     */
+    public void setMaxContentLength( long maxContentLength )
+    {
+        this.maxContentLength = maxContentLength;
+    }
+    
+    /**
+     * Retrieves the minimum rate at which the server has to send the content.
+     *
+     * @return the minimum rate in bytes per second, <code>0</code> means no limit
+     */
+    public int getMinTransferRate()
+    {
+        return minTransferRate;
+    }
+    
+    /**
+     * Sets the minimum rate at which the server has to send the content.<br/>
+     * Only the time spent waiting for the server counts, so slow consumers don't fail the
+     * request. Reading the content fails and the connection is closed when the server falls
+     * below the rate after a grace period of a few seconds.
+     *
+     * @param minTransferRate the minimum rate in bytes per second, <code>0</code> means no limit
+     */
+    public void setMinTransferRate( int minTransferRate )
+    {
+        this.minTransferRate = minTransferRate;
+    }
+    
+    /**
+     * Compares two request options. Options are equal if all their values are equal, the
+     * trusted certificate supplier and consumer are compared with their own <code>equals</code>.
+     *
+     * @param o the other options
+     * @return <code>true</code> if both options are equal
+     */
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        RequestOptions options = ( RequestOptions ) o;
+        return validationEnabled == options.validationEnabled
+            && certificateRenewalCheckEnabled == options.certificateRenewalCheckEnabled
+            && certificateGracePeriod == options.certificateGracePeriod
+            && sessionCacheSize == options.sessionCacheSize
+            && sessionTimeout == options.sessionTimeout
+            && connectTimeout == options.connectTimeout
+            && handshakeTimeout == options.handshakeTimeout
+            && readTimeout == options.readTimeout
+            && requestTimeout == options.requestTimeout
+            && maxRedirects == options.maxRedirects
+            && maxContentLength == options.maxContentLength
+            && minTransferRate == options.minTransferRate
+            && redirectPolicy == options.redirectPolicy
+            && Objects.equals( tcs, options.tcs )
+            && Objects.equals( tcc, options.tcc );
+    }
+    
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( validationEnabled, certificateRenewalCheckEnabled, tcs, tcc,
+            certificateGracePeriod, sessionCacheSize, sessionTimeout, connectTimeout,
+            handshakeTimeout, readTimeout, requestTimeout, redirectPolicy, maxRedirects,
+            maxContentLength, minTransferRate );
+    }
 }
@@ -0,0 +1,581 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.cache.ResponseCache;
+import com.github.argsfxs.deneb.exception.RedirectException;
+import com.github.argsfxs.deneb.exception.SocketConnectException;
+import com.github.argsfxs.deneb.exception.SocketHandshakeException;
+import com.github.argsfxs.deneb.exception.SocketIOException;
+import com.github.argsfxs.deneb.metrics.ClientMetrics;
+import com.github.argsfxs.deneb.metrics.RequestListener;
+import com.github.argsfxs.deneb.metrics.RequestTrace;
+import com.github.argsfxs.deneb.options.ClientOptions;
+import com.github.argsfxs.deneb.options.RedirectPolicy;
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.response.ResponsePart;
+import com.github.argsfxs.deneb.security.SSLContextFactory;
+import com.github.argsfxs.deneb.transport.NioTransport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>This class is used to send {@link GeminiRequest} objects to Gemini servers.</p>
+ * <p>A client shares the TLS state (context, socket factory and session cache) between all
+ * requests it sends. Asynchronous requests are run by the client's executor, or driven by
+ * selector threads if the non-blocking transport is enabled.</p>
+ */
+public class GeminiClient implements AutoCloseable
+{
+    private static final String[] protocols = new String[]{ "TLSv1.3" };
+    
+    private static final String[] cipherSuites = new String[]{
+        "TLS_AES_128_GCM_SHA256" };
+    
+    private static final Logger logger = LogManager.getLogger( GeminiClient.class );
+    
+    private final SSLContextFactory contextFactory = new SSLContextFactory();
+    
+    private final Executor executor;
+    
+    private final NioTransport nioTransport;
+    
+    private final PermanentRedirects permanentRedirects = new PermanentRedirects();
+    
+    private final ResponseCache responseCache;
+    
+    private final int maxConnectionsPerHost;
+    
+    private final HostScheduler scheduler;
+    
+    private final RequestListener listener;
+    
+    private final ClientMetrics metrics;
+    
+    /**
+     * Creates a new client.<br/>
+     * Asynchronous requests are run on virtual threads if available, otherwise on a shared pool
+     * of daemon threads.
+     */
+    public GeminiClient()
+    {
+        this( new ClientOptions() );
+    }
+    
+    /**
+     * Creates a new client.
+     *
+     * @param executor the executor running asynchronous requests
+     */
+    public GeminiClient( Executor executor )
+    {
+        this( withExecutor( executor ) );
+    }
+    
+    /**
+     * Creates a new client.
+     *
+     * @param options the options controlling the behavior for all requests
+     */
+    public GeminiClient( ClientOptions options )
+    {
+        this.executor = options.getExecutor() != null ? options.getExecutor() :
+            DefaultExecutorHolder.executor;
+        this.nioTransport = options.isNioEnabled() ?
+            new NioTransport( options.getSelectorThreads(),
+                options.getReceiveBufferSize(), executor ) : null;
+        this.responseCache = options.getResponseCache();
+        this.maxConnectionsPerHost = options.getMaxConnectionsPerHost();
+        this.scheduler = HostScheduler.isEnabled( options ) ? new HostScheduler( options ) : null;
+        this.listener = options.getRequestListener();
+        this.metrics = options.isMetricsEnabled() ? new ClientMetrics() : null;
+    }
+    
+    /**
+     * Returns the latency histograms of the requests sent by this client.
+     *
+     * @return the metrics or <code>null</code> if {@link ClientOptions#setMetricsEnabled(boolean)}
+     * has not been enabled
+     */
+    public ClientMetrics getMetrics()
+    {
+        return metrics;
+    }
+    
+    /**
+     * Returns the client used by {@link GeminiRequest#send()} and
+     * {@link GeminiRequest#sendAsync()}.
+     *
+     * @return the default client
+     */
+    public static GeminiClient getDefault()
+    {
+        return DefaultClientHolder.client;
+    }
+    
+    /**
+     * Sends a request to the server and waits for the response header.<br/>
+     * The connection is closed when one of the timeouts of the request options expires.
+     * Redirects are followed according to the redirect policy of the request options, reusing
+     * the TLS session for redirects to the same server. Rate limits and retries of the client
+     * options are applied to each request sent.
+     *
+     * @param request the request to send
+     * @return the server response
+     */
+    public GeminiResponse send( GeminiRequest request )
+    {
+        if ( nioTransport != null || scheduler != null )
+        {
+            try
+            {
+                return sendAsync( request ).join();
+            }
+            catch ( CompletionException e )
+            {
+                throw e.getCause() instanceof RuntimeException ?
+                    ( RuntimeException ) e.getCause() : e;
+            }
+        }
+        if ( request.options().getRedirectPolicy() == RedirectPolicy.NEVER )
+        {
+            return sendOnce( request );
+        }
+        RedirectChain chain = new RedirectChain( permanentRedirects, request.options() );
+        GeminiRequest current = chain.start( request );
+        while ( true )
+        {
+            GeminiResponse response = sendOnce( current );
+            GeminiRequest next = chain.next( current, response );
+            if ( next == null )
+            {
+                return response;
+            }
+            current = next;
+        }
+    }
+    
+    /**
+     * Sends a request to the server without blocking the caller.<br/>
+     * Connecting, the TLS handshake and reading the response header are done by the client's
+     * executor or the non-blocking transport. Exceptions are reported by completing the future
+     * exceptionally.
+     *
+     * @param request the request to send
+     * @return the future server response
+     */
+    public CompletableFuture<GeminiResponse> sendAsync( GeminiRequest request )
+    {
+        if ( request.options().getRedirectPolicy() == RedirectPolicy.NEVER )
+        {
+            return sendAsyncOnce( request );
+        }
+        RedirectChain chain = new RedirectChain( permanentRedirects, request.options() );
+        try
+        {
+            return followAsync( chain, chain.start( request ) );
+        }
+        catch ( RedirectException e )
+        {
+            return CompletableFuture.failedFuture( e );
+        }
+    }
+    
+    /**
+     * Returns a publisher of the response to a request.<br/>
+     * The request is sent for every subscriber once it requests the first part. Subscribers
+     * receive the response header followed by the content of a success response in chunks.
+     * Content is only read from the connection as far as the subscriber has requested it, the
+     * header is awaited without blocking a thread.
+     *
+     * @param request the request to send
+     * @return the publisher of the response parts
+     */
+    public Flow.Publisher<ResponsePart> publish( GeminiRequest request )
+    {
+        return subscriber -> new RequestPublisher( this, request, executor )
+            .subscribe( subscriber );
+    }
+    
+    /**
+     * Sends a batch of requests without blocking the caller.<br/>
+     * The requests are grouped by server. Each group starts with a single request, whose TLS
+     * session is resumed by the following requests of the group, and then sends up to the
+     * maximum number of connections per host of the client options at the same time. Groups for
+     * different servers are sent in parallel.<br/>
+     * The futures complete as soon as the respective response header has been received, so
+     * results can be processed while the remaining requests are still being sent.
+     *
+     * @param requests the requests to send
+     * @return the future server responses in the iteration order of the requests
+     */
+    public List<CompletableFuture<GeminiResponse>> fetchAll(
+        Collection<GeminiRequest> requests )
+    {
+        Map<String, HostBatch> batches = new LinkedHashMap<>();
+        List<CompletableFuture<GeminiResponse>> responses = new ArrayList<>( requests.size() );
+        for ( GeminiRequest request : requests )
+        {
+            HostBatch batch = batches.computeIfAbsent( HostScheduler.key( request ),
+                k -> new HostBatch( this, maxConnectionsPerHost ) );
+            responses.add( batch.add( request ) );
+        }
+        batches.values().forEach( HostBatch::start );
+        return responses;
+    }
+    
+    /**
+     * Closes the client. If the non-blocking transport is used, its selector threads are
+     * stopped and open connections are closed.
+     */
+    @Override
+    public void close()
+    {
+        if ( nioTransport != null )
+        {
+            nioTransport.close();
+        }
+    }
+    
+    private GeminiResponse sendBlocking( GeminiRequest request )
+    {
+        RequestOptions options = request.options();
+        RequestTrace trace = RequestTrace.of( listener, metrics, request );
+        trace.started();
+        Socket plainSocket = new Socket();
+        ScheduledFuture<?> deadline = scheduleDeadline( plainSocket,
+            options.getRequestTimeout() );
+        try
+        {
+            SSLSocket socket = connect( plainSocket, request.getHost(), request.getPort(),
+                options, deadline, trace );
+            initHandshake( socket, options, deadline );
+            trace.handshakeCompleted();
+            InputStream in;
+            OutputStream out;
+            
+            try
+            {
+                socket.setSoTimeout( options.getReadTimeout() );
+                in = new ReleasingInputStream( trace.wrap( socket.getInputStream() ),
+                    () -> release( plainSocket, deadline ) );
+                out = socket.getOutputStream();
+                // the request line must be terminated by CRLF on every platform
+                out.write( ( request.getUrl() + "\r\n" ).getBytes( StandardCharsets.UTF_8 ) );
+                out.flush();
+            }
+            catch ( IOException e )
+            {
+                logger.error( "Exception during socket read/write: {}",
+                    e.getMessage() );
+                throw new SocketIOException( timeoutOr( e, deadline ) );
+            }
+            
+            GeminiResponse response;
+            try
+            {
+                response = GeminiResponseFactory.create( in, options );
+            }
+            catch ( SocketIOException e )
+            {
+                throw isExpired( deadline ) ?
+                    new SocketIOException( new SocketTimeoutException( "Request timed out" ) ) : e;
+            }
+            trace.headerReceived( response );
+            if ( !( response instanceof GeminiSuccessResponse ) )
+            {
+                // only success responses have content to read
+                release( plainSocket, deadline );
+            }
+            return response;
+        }
+        catch ( RuntimeException e )
+        {
+            release( plainSocket, deadline );
+            trace.failed( e );
+            throw e;
+        }
+    }
+    
+    private CompletableFuture<GeminiResponse> followAsync( RedirectChain chain,
+        GeminiRequest request )
+    {
+        return sendAsyncOnce( request ).thenCompose( response -> {
+            GeminiRequest next = chain.next( request, response );
+            return next == null ? CompletableFuture.completedFuture( response ) :
+                followAsync( chain, next );
+        } );
+    }
+    
+    private GeminiResponse sendOnce( GeminiRequest request )
+    {
+        if ( responseCache == null )
+        {
+            return sendBlocking( request );
+        }
+        GeminiResponse cached = responseCache.get( request );
+        return cached != null ? cached : responseCache.put( request, sendBlocking( request ) );
+    }
+    
+    private CompletableFuture<GeminiResponse> sendAsyncOnce( GeminiRequest request )
+    {
+        if ( responseCache == null )
+        {
+            return sendAsyncScheduled( request, 0 );
+        }
+        GeminiResponse cached = responseCache.get( request );
+        if ( cached != null )
+        {
+            return CompletableFuture.completedFuture( cached );
+        }
+        return sendAsyncScheduled( request, 0 ).thenApply(
+            response -> responseCache.put( request, response ) );
+    }
+    
+    private CompletableFuture<GeminiResponse> sendAsyncScheduled( GeminiRequest request,
+        int attempt )
+    {
+        if ( scheduler == null )
+        {
+            return sendAsyncUncached( request );
+        }
+        long delay = scheduler.reserve( request );
+        CompletableFuture<GeminiResponse> response = delay > 0 ?
+            delay( delay ).thenCompose( v -> sendAsyncUncached( request ) ) :
+            sendAsyncUncached( request );
+        return response.thenCompose( r -> {
+            long retryDelay = scheduler.retryDelay( request, r, attempt );
+            if ( retryDelay < 0 )
+            {
+                return CompletableFuture.completedFuture( r );
+            }
+            return delay( retryDelay ).thenCompose(
+                v -> sendAsyncScheduled( request, attempt + 1 ) );
+        } );
+    }
+    
+    private CompletableFuture<GeminiResponse> sendAsyncUncached( GeminiRequest request )
+    {
+        if ( nioTransport != null )
+        {
+            RequestTrace trace = RequestTrace.of( listener, metrics, request );
+            trace.started();
+            SSLEngine engine;
+            try
+            {
+                engine = createEngine( request.getHost(), request.getPort(),
+                    request.options() );
+            }
+            catch ( SocketConnectException e )
+            {
+                trace.failed( e );
+                return CompletableFuture.failedFuture( e );
+            }
+            return nioTransport.send( engine, request.getHost(),
+                request.getPort(), request.getUrl(), request.options(), trace );
+        }
+        return CompletableFuture.supplyAsync( () -> sendBlocking( request ), executor );
+    }
+    
+    private static ClientOptions withExecutor( Executor executor )
+    {
+        ClientOptions options = new ClientOptions();
+        options.setExecutor( executor );
+        return options;
+    }
+    
+    private SSLSocket connect( Socket plainSocket, String host, int port,
+        RequestOptions options, ScheduledFuture<?> deadline, RequestTrace trace )
+    {
+        SSLSocket socket;
+        try
+        {
+            SSLSocketFactory factory =
+                contextFactory.getSocketFactory( options );
+            InetSocketAddress address = new InetSocketAddress( host, port );
+            trace.dnsResolved();
+            plainSocket.connect( address, options.getConnectTimeout() );
+            trace.connected();
+            socket = ( SSLSocket ) factory.createSocket( plainSocket, host, port, true );
+            socket.setEnabledProtocols( protocols );
+            socket.setEnabledCipherSuites( cipherSuites );
+            socket.setUseClientMode( true );
+        }
+        catch ( GeneralSecurityException e )
+        {
+            logger.error( "Couldn't connect to socket: {}", e.getMessage() );
+            throw new SocketConnectException( e );
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't connect to socket: {}", e.getMessage() );
+            throw new SocketConnectException( timeoutOr( e, deadline ) );
+        }
+        return socket;
+    }
+    
+    private SSLEngine createEngine( String host, int port, RequestOptions options )
+    {
+        try
+        {
+            SSLEngine engine =
+                contextFactory.getContext( options ).createSSLEngine( host, port );
+            engine.setUseClientMode( true );
+            engine.setEnabledProtocols( protocols );
+            engine.setEnabledCipherSuites( cipherSuites );
+            return engine;
+        }
+        catch ( GeneralSecurityException e )
+        {
+            logger.error( "Couldn't create SSL engine: {}", e.getMessage() );
+            throw new SocketConnectException( e );
+        }
+    }
+    
+    private void initHandshake( SSLSocket socket, RequestOptions options,
+        ScheduledFuture<?> deadline )
+    {
+        try
+        {
+            socket.setSoTimeout( options.getHandshakeTimeout() );
+            socket.startHandshake();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Exception during TLS handshake: {}",
+                e.getMessage() );
+            throw new SocketHandshakeException( timeoutOr( e, deadline ) );
+        }
+    }
+    
+    private static ScheduledFuture<?> scheduleDeadline( Socket socket, int timeout )
+    {
+        if ( timeout <= 0 )
+        {
+            return null;
+        }
+        return TimerHolder.timer.schedule( () -> closeQuietly( socket ), timeout,
+            TimeUnit.MILLISECONDS );
+    }
+    
+    private static CompletableFuture<Void> delay( long nanos )
+    {
+        // deferred requests wait on the shared timer instead of occupying a thread
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        TimerHolder.timer.schedule( () -> future.complete( null ), nanos,
+            TimeUnit.NANOSECONDS );
+        return future;
+    }
+    
+    private static boolean isExpired( ScheduledFuture<?> deadline )
+    {
+        // the socket might be closed before the timer task has completed
+        return deadline != null && !deadline.isCancelled()
+            && deadline.getDelay( TimeUnit.NANOSECONDS ) <= 0;
+    }
+    
+    private static IOException timeoutOr( IOException e, ScheduledFuture<?> deadline )
+    {
+        // closing the socket at the deadline surfaces as a generic socket exception
+        return isExpired( deadline ) ? new SocketTimeoutException( "Request timed out" ) : e;
+    }
+    
+    private static void release( Socket socket, ScheduledFuture<?> deadline )
+    {
+        if ( deadline != null )
+        {
+            deadline.cancel( false );
+        }
+        // closing the plain socket also closes the TLS socket layered on top of it
+        closeQuietly( socket );
+    }
+    
+    private static void closeQuietly( Socket socket )
+    {
+        try
+        {
+            socket.close();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't close socket: {}", e.getMessage() );
+        }
+    }
+    
+    private static ScheduledExecutorService createTimer()
+    {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor( 1, r -> {
+            Thread thread = new Thread( r, "deneb-timer" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        timer.setRemoveOnCancelPolicy( true );
+        return timer;
+    }
+    
+    private static Executor createDefaultExecutor()
+    {
+        try
+        {
+            // virtual threads are only available since Java 21
+            return ( Executor ) Executors.class.getMethod(
+                "newVirtualThreadPerTaskExecutor" ).invoke( null );
+        }
+        catch ( ReflectiveOperationException e )
+        {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threadFactory = r -> {
+                Thread thread = new Thread( r,
+                    "deneb-client-" + count.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            };
+            return Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors() * 8, threadFactory );
+        }
+    }
+    
+    private static class DefaultClientHolder
+    {
+        private static final GeminiClient client = new GeminiClient();
+    }
+    
+    private static class DefaultExecutorHolder
+    {
+        private static final Executor executor = createDefaultExecutor();
+    }
+    
+    private static class TimerHolder
+    {
+        private static final ScheduledExecutorService timer = createTimer();
+    }
+}
@@ -1,33 +1,42 @@
 package com.github.argsfxs.deneb.request;
 
-import com.github.argsfxs.deneb.exception.SocketHandshakeException;
-import com.github.argsfxs.deneb.exception.SocketIOException;
+import com.github.argsfxs.deneb.options.RequestOptions;
 import com.github.argsfxs.deneb.response.GeminiResponse;
-import com.github.argsfxs.deneb.response.GeminiResponseFactory;
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
+import com.github.argsfxs.deneb.response.ResponsePart;
 
-import javax.net.ssl.SSLSocket;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.io.PrintWriter;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
 
 /**
- * This class represents a Gemini request to a Gemini server.
+ * <p>This class represents a Gemini request to a Gemini server.</p>
+ * <p>A request is an immutable description of what to send, it doesn't hold a connection. The
+ * connection to the server is established when the request is sent, thus requests can be built
+ * in advance and queued in large numbers. A request can be sent multiple times.</p>
+ * <p>A request keeps its own copy of the options it has been built with, so changing the options
+ * afterwards doesn't affect requests that are already queued.</p>
+ * <p>A request is also a publisher of its response, which is sent by the default client for
+ * every subscriber.</p>
  */
-public class GeminiRequest
+public class GeminiRequest implements Flow.Publisher<ResponsePart>
 {
     private final String url;
     
-    private final SSLSocket socket;
+    private final String host;
     
-    private final Logger logger = LogManager.getLogger( GeminiRequest.class );
+    private final int port;
     
-    GeminiRequest( String url, SSLSocket socket )
+    private final RequestOptions options;
+    
+    /**
+     * @param options the options, which are not copied and must not be changed afterwards
+     */
+    GeminiRequest( String url, String host, int port, RequestOptions options )
     {
         this.url = url;
-        this.socket = socket;
+        this.host = host;
+        this.port = port;
+        this.options = options;
     }
     
     private GeminiRequest withCertificate()
@@ -36,45 +45,118 @@ public class GeminiRequest
     }
     
     /**
-     * Sends the request to the server.
+     * Sends the request to the server using the default client.
      *
      * @return the server response
+     * @see GeminiClient#send(GeminiRequest)
      */
     public GeminiResponse send()
     {
-        initHandshake();
-        InputStream in = null;
-        OutputStream out;
-        
-        try
-        {
-            in = socket.getInputStream();
-            out = socket.getOutputStream();
-            PrintWriter pw = new PrintWriter( out, true );
-            pw.println( url );
-        }
-        catch ( IOException e )
-        {
-            logger.error( "Exception during socket read/write: {}",
-                e.getMessage() );
-            throw new SocketIOException( e );
-        }
-        
-        return GeminiResponseFactory.create( in );
+        return GeminiClient.getDefault().send( this );
+    }
+    
+    /**
+     * Sends the request to the server using the default client without blocking the caller.
+     *
+     * @return the future server response
+     * @see GeminiClient#sendAsync(GeminiRequest)
+     */
+    public CompletableFuture<GeminiResponse> sendAsync()
+    {
+        return GeminiClient.getDefault().sendAsync( this );
+    }
+    
+    /**
+     * Sends the request to the server using the default client once the subscriber requests the
+     * first part of the response.
+     *
+     * @param subscriber the subscriber receiving the response header and content
+     * @see GeminiClient#publish(GeminiRequest)
+     */
+    @Override
+    public void subscribe( Flow.Subscriber<? super ResponsePart> subscriber )
+    {
+        GeminiClient.getDefault().publish( this ).subscribe( subscriber );
+    }
+    
+    /**
+     * Returns the request URL.
+     *
+     * @return the URL
+     */
+    public String getUrl()
+    {
+        return url;
+    }
+    
+    /**
+     * Returns the host to connect to.
+     *
+     * @return the server host
+     */
+    public String getHost()
+    {
+        return host;
     }
     
-    private void initHandshake()
+    /**
+     * Returns the port to connect to.
+     *
+     * @return the server port
+     */
+    public int getPort()
     {
-        try
+        return port;
+    }
+    
+    /**
+     * Returns the options controlling the behavior when the request is being sent.<br/>
+     * Changing the returned options doesn't affect the request.
+     *
+     * @return a copy of the request options
+     */
+    public RequestOptions getOptions()
+    {
+        return new RequestOptions( options );
+    }
+    
+    /**
+     * @return the request options, which must not be changed
+     */
+    RequestOptions options()
+    {
+        return options;
+    }
+    
+    /**
+     * Compares two requests. Requests are equal if they are sent to the same URL, host and
+     * port with equal options.
+     *
+     * @param o the other request
+     * @return <code>true</code> if both requests are equal
+     */
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
         {
-            socket.startHandshake();
+            return true;
         }
-        catch ( IOException e )
+        if ( o == null || getClass() != o.getClass() )
         {
-            logger.error( "Exception during TLS handshake: {}",
-                e.getMessage() );
-            throw new SocketHandshakeException( e );
+            return false;
         }
+        GeminiRequest request = ( GeminiRequest ) o;
+        return port == request.port
+            && url.equals( request.url )
+            && host.equals( request.host )
+            && options.equals( request.options );
+    }
+    
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( url, host, port );
     }
     
     @Override
@@ -1,41 +1,31 @@
 package com.github.argsfxs.deneb.request;
 
-import com.github.argsfxs.deneb.exception.SocketConnectException;
 import com.github.argsfxs.deneb.exception.URILengthExceededException;
 import com.github.argsfxs.deneb.options.RequestOptions;
-import com.github.argsfxs.deneb.security.ValidationTrustManager;
 import org.apache.commons.codec.EncoderException;
 import org.apache.commons.codec.net.URLCodec;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
-import javax.net.ssl.TrustManager;
-import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.security.GeneralSecurityException;
-import java.security.SecureRandom;
 
 /**
  * This class is used to build a {@link GeminiRequest}.
  */
 public class GeminiRequestBuilder
 {
-    private static final String[] protocols = new String[]{ "TLSv1.3" };
+    private static final Logger logger =
+        LogManager.getLogger( GeminiRequestBuilder.class );
+    
+    private static final int MAX_URL_LENGTH = 1024;
     
-    private static final String[] cipherSuites = new String[]{
-        "TLS_AES_128_GCM_SHA256" };
+    private static final URLCodec codec = new URLCodec();
     
     private final String host;
     
     private final RequestOptions options;
     
-    private final Logger logger =
-        LogManager.getLogger( GeminiRequestBuilder.class );
-    
     private String scheme = "gemini";
     
     private String path = "/";
@@ -120,27 +110,40 @@ public class GeminiRequestBuilder
     }
     
     /**
-     * Builds the request.
+     * Builds the request.<br/>
+     * Building a request is cheap, it doesn't connect to the server or allocate any resources
+     * besides the request and a copy of the options. The connection is established when the
+     * request is sent, later changes of the options don't affect the request.
      *
      * @return the request that is ready to be sent
      */
     public GeminiRequest build()
     {
-        String url = buildUrl();
-        SSLSocket socket = connect( host, port );
-        return new GeminiRequest( url, socket );
+        return new GeminiRequest( buildUrl(), host, port, new RequestOptions( options ) );
     }
     
     String buildUrl()
     {
-        String url = String.format( "%s://%s%s", scheme, host,
-            normalizePath( path ) );
+        StringBuilder sb = new StringBuilder( scheme.length() + host.length() + path.length()
+            + queryString.length() + 5 );
+        sb.append( scheme ).append( "://" ).append( host );
+        if ( !path.startsWith( "/" ) )
+        {
+            sb.append( '/' );
+        }
+        sb.append( path );
         if ( !StringUtils.isEmpty( queryString ) )
         {
-            url = String.format( "%s?%s", url, queryString );
+            sb.append( '?' ).append( queryString );
+        }
+        String url = sb.toString();
+        // a char is encoded in at most three bytes, only longer URLs need to be encoded
+        if ( url.length() * 3 <= MAX_URL_LENGTH )
+        {
+            return url;
         }
         int urlLength = url.getBytes( StandardCharsets.UTF_8 ).length;
-        if ( urlLength > 1024 )
+        if ( urlLength > MAX_URL_LENGTH )
         {
             logger.error( "Provided URI too long! Length: {}", urlLength );
             throw new URILengthExceededException();
@@ -148,17 +151,12 @@ public class GeminiRequestBuilder
         return url;
     }
     
-    private String normalizePath( String path )
-    {
-        return path.startsWith( "/" ) ? path : "/" + path;
-    }
-    
     private String encodeQuery( String queryString )
     {
         String encoded;
         try
         {
-            encoded = new URLCodec().encode( queryString );
+            encoded = codec.encode( queryString );
         }
         catch ( EncoderException e )
         {
@@ -168,30 +166,4 @@ public class GeminiRequestBuilder
         }
         return encoded.replaceAll( "\\+", "%20" );
     }
-    
-    private SSLSocket connect( String host, int port )
-    {
-        SSLSocket socket;
-        try
-        {
-            SSLContext sc = SSLContext.getInstance( "SSL" );
-            sc.init( null,
-                new TrustManager[]{ new ValidationTrustManager( host, port,
-                    options ) },
-                new SecureRandom() );
-            SSLContext.setDefault( sc );
-            SSLSocketFactory factory =
-                ( SSLSocketFactory ) SSLSocketFactory.getDefault();
-            socket = ( SSLSocket ) factory.createSocket( host, port );
-            socket.setEnabledProtocols( protocols );
-            socket.setEnabledCipherSuites( cipherSuites );
-            socket.setUseClientMode( true );
-        }
-        catch ( GeneralSecurityException | IOException e )
-        {
-            logger.error( "Couldn't connect to socket: {}", e.getMessage() );
-            throw new SocketConnectException( e );
-        }
-        return socket;
-    }
 }
@@ -0,0 +1,168 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class is used to send the requests of a batch which go to the same server.<br/>
+ * The first request is sent on its own, so the following requests can resume its TLS session
+ * instead of each performing a full handshake. Afterwards, at most the given number of
+ * connections are open at the same time. A success response holds its connection until its
+ * content has been read to the end or it is closed, all other responses release it with the
+ * header.
+ */
+class HostBatch
+{
+    private static final Logger logger = LogManager.getLogger( HostBatch.class );
+    
+    private final GeminiClient client;
+    
+    private final int maxConnections;
+    
+    private final Queue<Entry> pending = new ArrayDeque<>();
+    
+    private boolean started;
+    
+    HostBatch( GeminiClient client, int maxConnections )
+    {
+        this.client = client;
+        this.maxConnections = Math.max( 1, maxConnections );
+    }
+    
+    /**
+     * Adds a request to the batch.
+     *
+     * @param request the request to send
+     * @return the future server response
+     */
+    CompletableFuture<GeminiResponse> add( GeminiRequest request )
+    {
+        Entry entry = new Entry( request );
+        pending.add( entry );
+        return entry.future;
+    }
+    
+    /**
+     * Starts sending the requests of the batch.
+     */
+    void start()
+    {
+        sendNext();
+    }
+    
+    private void sendNext()
+    {
+        Entry entry;
+        while ( ( entry = poll() ) != null )
+        {
+            Entry current = entry;
+            CompletableFuture<GeminiResponse> response = send( entry.request );
+            if ( !response.isDone() )
+            {
+                response.whenComplete( ( r, e ) -> {
+                    onHeader();
+                    if ( r instanceof GeminiSuccessResponse )
+                    {
+                        r = holdConnection( ( GeminiSuccessResponse ) r );
+                    }
+                    complete( current, r, e );
+                    if ( !( r instanceof GeminiSuccessResponse ) )
+                    {
+                        sendNext();
+                    }
+                } );
+                return;
+            }
+            // responses served from the cache don't hold a connection, continue right away
+            response.whenComplete( ( r, e ) -> complete( current, r, e ) );
+        }
+    }
+    
+    private void onHeader()
+    {
+        synchronized ( this )
+        {
+            if ( started )
+            {
+                return;
+            }
+            started = true;
+        }
+        // the TLS session of the first request can be resumed now
+        for ( int i = 1; i < maxConnections; i++ )
+        {
+            sendNext();
+        }
+    }
+    
+    /**
+     * Returns the response with a content stream which sends the next request once the
+     * connection of the response has been released.
+     */
+    private GeminiResponse holdConnection( GeminiSuccessResponse response )
+    {
+        InputStream content = response.getContent();
+        return GeminiResponseFactory.create( response.getHeader(),
+            new ReleasingInputStream( content, () -> {
+                try
+                {
+                    content.close();
+                }
+                catch ( IOException e )
+                {
+                    logger.error( "Couldn't close response content: {}", e.getMessage() );
+                }
+                sendNext();
+            } ) );
+    }
+    
+    private synchronized Entry poll()
+    {
+        return pending.poll();
+    }
+    
+    private CompletableFuture<GeminiResponse> send( GeminiRequest request )
+    {
+        try
+        {
+            return client.sendAsync( request );
+        }
+        catch ( RuntimeException e )
+        {
+            return CompletableFuture.failedFuture( e );
+        }
+    }
+    
+    private static void complete( Entry entry, GeminiResponse response, Throwable e )
+    {
+        if ( e != null )
+        {
+            entry.future.completeExceptionally( e );
+        }
+        else
+        {
+            entry.future.complete( response );
+        }
+    }
+    
+    private static class Entry
+    {
+        private final GeminiRequest request;
+        
+        private final CompletableFuture<GeminiResponse> future = new CompletableFuture<>();
+        
+        private Entry( GeminiRequest request )
+        {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.options.ClientOptions;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiTempFailResponse;
+import com.github.argsfxs.deneb.util.Status;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>This class is used to pace the requests a {@link GeminiClient} sends to each server.</p>
+ * <p>Every server has a token bucket which is refilled at the configured rate. A request finding
+ * the bucket empty is delayed until a token becomes available instead of failing. A server
+ * responding with {@link Status#SLOW_DOWN} is paused for the number of seconds it asks for,
+ * other temporary failures are retried with an exponential backoff.</p>
+ */
+class HostScheduler
+{
+    private static final int MAX_HOSTS = 4096;
+    
+    // longer delays aren't waited for, the response is returned to the caller instead
+    private static final long MAX_RETRY_DELAY = TimeUnit.MINUTES.toNanos( 5 );
+    
+    // tokens per nanosecond
+    private final double rate;
+    
+    private final int burst;
+    
+    private final int maxRetries;
+    
+    private final long backoff;
+    
+    private final Map<String, Bucket> buckets =
+        new LinkedHashMap<>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Bucket> eldest )
+            {
+                return size() > MAX_HOSTS;
+            }
+        };
+    
+    HostScheduler( ClientOptions options )
+    {
+        this.rate = options.getHostRequestRate() / TimeUnit.SECONDS.toNanos( 1 );
+        this.burst = Math.max( 1, options.getHostRequestBurst() );
+        this.maxRetries = options.getMaxRetries();
+        this.backoff = TimeUnit.MILLISECONDS.toNanos( options.getRetryBackoff() );
+    }
+    
+    /**
+     * Returns whether the options require requests to be scheduled.
+     *
+     * @param options the client options
+     * @return <code>true</code> if requests are rate limited or retried
+     */
+    static boolean isEnabled( ClientOptions options )
+    {
+        return options.getHostRequestRate() > 0 || options.getMaxRetries() > 0;
+    }
+    
+    /**
+     * Returns the key identifying the server of a request.
+     *
+     * @param request the request
+     * @return the lower-case host and the port
+     */
+    static String key( GeminiRequest request )
+    {
+        return request.getHost().toLowerCase( Locale.ROOT ) + ':' + request.getPort();
+    }
+    
+    /**
+     * Takes a token for sending a request to its server.
+     *
+     * @param request the request to send
+     * @return the number of nanoseconds to wait before sending the request
+     */
+    synchronized long reserve( GeminiRequest request )
+    {
+        long now = System.nanoTime();
+        Bucket bucket = bucket( request, now );
+        long start = Math.max( now, bucket.pausedUntil );
+        if ( rate > 0 )
+        {
+            bucket.tokens = Math.min( burst, bucket.tokens + ( now - bucket.updated ) * rate );
+            bucket.updated = now;
+            // the bucket may go into debt, so queued requests are spread out evenly
+            bucket.tokens -= 1;
+            if ( bucket.tokens < 0 )
+            {
+                start = Math.max( start, now + ( long ) Math.ceil( -bucket.tokens / rate ) );
+            }
+        }
+        return start - now;
+    }
+    
+    /**
+     * Returns the delay before a request is sent again after receiving a response.<br/>
+     * A {@link Status#SLOW_DOWN} response pauses all requests to the server.
+     *
+     * @param request  the request that has been sent
+     * @param response the response received
+     * @param attempt  the number of retries already made
+     * @return the number of nanoseconds to wait or <code>-1</code> if the request is not retried
+     */
+    long retryDelay( GeminiRequest request, GeminiResponse response, int attempt )
+    {
+        if ( !( response instanceof GeminiTempFailResponse ) )
+        {
+            return -1;
+        }
+        long delay = backoff( attempt );
+        if ( response.getStatus() == Status.SLOW_DOWN )
+        {
+            delay = slowDownDelay( ( GeminiTempFailResponse ) response, delay );
+            pause( request, Math.min( delay, MAX_RETRY_DELAY ) );
+        }
+        if ( attempt >= maxRetries || delay > MAX_RETRY_DELAY )
+        {
+            return -1;
+        }
+        return delay;
+    }
+    
+    private synchronized void pause( GeminiRequest request, long nanos )
+    {
+        long now = System.nanoTime();
+        Bucket bucket = bucket( request, now );
+        bucket.pausedUntil = Math.max( bucket.pausedUntil, now + nanos );
+    }
+    
+    private Bucket bucket( GeminiRequest request, long now )
+    {
+        return buckets.computeIfAbsent( key( request ), k -> new Bucket( burst, now ) );
+    }
+    
+    private long backoff( int attempt )
+    {
+        return Math.min( backoff << Math.min( attempt, 20 ), MAX_RETRY_DELAY );
+    }
+    
+    private static long slowDownDelay( GeminiTempFailResponse response, long fallback )
+    {
+        // the meta of a slow down response is the number of seconds to wait
+        String meta = response.getErrorMessage().orElse( "" ).trim();
+        try
+        {
+            long seconds = Long.parseLong( meta );
+            return seconds < 0 ? fallback : TimeUnit.SECONDS.toNanos( seconds );
+        }
+        catch ( NumberFormatException e )
+        {
+            return fallback;
+        }
+    }
+    
+    private static class Bucket
+    {
+        private double tokens;
+        
+        private long updated;
+        
+        private long pausedUntil;
+        
+        private Bucket( int tokens, long now )
+        {
+            this.tokens = tokens;
+            this.updated = now;
+            this.pausedUntil = now;
+        }
+    }
+}
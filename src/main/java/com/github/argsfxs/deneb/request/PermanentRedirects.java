@@ -0,0 +1,49 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.util.UrlNormalizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class is used to remember permanent redirects received by a {@link GeminiClient}.<br/>
+ * Requests to a URL which has been permanently redirected are sent to the target right away.
+ * Redirects are looked up by the normalized request URL including the port the request is sent
+ * to.
+ * The least recently used redirects are dropped once the maximum size is exceeded.
+ */
+class PermanentRedirects
+{
+    private static final int MAX_REDIRECTS = 1024;
+    
+    private final Map<String, String> redirects =
+        new LinkedHashMap<>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, String> eldest )
+            {
+                return size() > MAX_REDIRECTS;
+            }
+        };
+    
+    /**
+     * Returns the target of a permanent redirect.
+     *
+     * @param request the redirected request
+     * @return the absolute target URL or <code>null</code> if the request is not redirected
+     */
+    synchronized String get( GeminiRequest request )
+    {
+        return redirects.get( key( request ) );
+    }
+    
+    synchronized void put( GeminiRequest request, String target )
+    {
+        redirects.put( key( request ), target );
+    }
+    
+    static String key( GeminiRequest request )
+    {
+        return UrlNormalizer.normalize( request.getUrl(), request.getPort() );
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.exception.RedirectException;
+import com.github.argsfxs.deneb.options.RedirectPolicy;
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.response.GeminiRedirectResponse;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.util.Status;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class is used to follow the redirects of a single request.<br/>
+ * It keeps track of the visited URLs to detect loops and limits the number of hops according
+ * to the {@link RequestOptions}. Permanent redirects are remembered by the client, so they are
+ * not requested again.
+ */
+class RedirectChain
+{
+    private static final Logger logger = LogManager.getLogger( RedirectChain.class );
+    
+    private final PermanentRedirects permanentRedirects;
+    
+    private final RedirectPolicy policy;
+    
+    private final int maxRedirects;
+    
+    private final Set<String> visited = new HashSet<>();
+    
+    private int hops;
+    
+    RedirectChain( PermanentRedirects permanentRedirects, RequestOptions options )
+    {
+        this.permanentRedirects = permanentRedirects;
+        this.policy = options.getRedirectPolicy();
+        this.maxRedirects = options.getMaxRedirects();
+    }
+    
+    /**
+     * Returns the request to send first, skipping known permanent redirects.
+     *
+     * @param request the original request
+     * @return the request to send
+     */
+    GeminiRequest start( GeminiRequest request )
+    {
+        visited.add( PermanentRedirects.key( request ) );
+        String target;
+        while ( ( target = permanentRedirects.get( request ) ) != null )
+        {
+            GeminiRequest next = resolve( request, URI.create( target ) );
+            if ( next == null )
+            {
+                break;
+            }
+            request = hop( next );
+        }
+        return request;
+    }
+    
+    /**
+     * Returns the request to send next.
+     *
+     * @param request  the request sent last
+     * @param response the response to the request
+     * @return the redirected request or <code>null</code> if the response is to be returned to
+     * the caller
+     */
+    GeminiRequest next( GeminiRequest request, GeminiResponse response )
+    {
+        if ( !( response instanceof GeminiRedirectResponse ) )
+        {
+            return null;
+        }
+        URI uri = ( ( GeminiRedirectResponse ) response ).getURI();
+        GeminiRequest next = uri == null ? null : resolve( request, uri );
+        if ( next == null )
+        {
+            return null;
+        }
+        if ( response.getStatus() == Status.PERMANENT_REDIRECTION )
+        {
+            permanentRedirects.put( request, next.getUrl() );
+        }
+        return hop( next );
+    }
+    
+    private GeminiRequest hop( GeminiRequest next )
+    {
+        if ( ++hops > maxRedirects )
+        {
+            logger.error( "Too many redirects, last to {}", next.getUrl() );
+            throw new RedirectException( "Too many redirects" );
+        }
+        if ( !visited.add( PermanentRedirects.key( next ) ) )
+        {
+            logger.error( "Redirect loop detected at {}", next.getUrl() );
+            throw new RedirectException( "Redirect loop detected" );
+        }
+        return next;
+    }
+    
+    private GeminiRequest resolve( GeminiRequest request, URI target )
+    {
+        URI base;
+        URI uri;
+        try
+        {
+            base = URI.create( request.getUrl() );
+            uri = base.resolve( target );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            logger.error( "Couldn't resolve redirect URI: {}", e.getMessage() );
+            return null;
+        }
+        // redirects to other protocols are left to the caller
+        if ( !"gemini".equalsIgnoreCase( uri.getScheme() ) || uri.getHost() == null )
+        {
+            return null;
+        }
+        String url = uri.toString();
+        if ( url.getBytes( StandardCharsets.UTF_8 ).length > 1024 )
+        {
+            logger.error( "Redirect URI too long! Length: {}", url.length() );
+            return null;
+        }
+        int port = uri.getPort();
+        if ( port == -1 )
+        {
+            // a request URL without port still refers to the port the request was sent to
+            port = base.getPort() == -1 && uri.getHost().equalsIgnoreCase( base.getHost() ) ?
+                request.getPort() : 1965;
+        }
+        if ( policy == RedirectPolicy.SAME_HOST && !( uri.getHost().equalsIgnoreCase(
+            request.getHost() ) && port == request.getPort() ) )
+        {
+            return null;
+        }
+        return new GeminiRequest( url, uri.getHost(), port, request.options() );
+    }
+}
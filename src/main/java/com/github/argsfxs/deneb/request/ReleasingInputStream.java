@@ -0,0 +1,75 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.response.TransferableContent;
+import com.github.argsfxs.deneb.util.ChannelCopy;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class represents the content stream of a connection.<br/>
+ * The connection is released as soon as the end of the stream is reached or the stream is
+ * closed, so callers which read the content to the end don't leak the socket. Transferring the
+ * content to a channel still happens straight from the buffers of the wrapped stream.
+ */
+class ReleasingInputStream extends FilterInputStream implements TransferableContent
+{
+    private final Runnable release;
+    
+    private boolean released;
+    
+    ReleasingInputStream( InputStream in, Runnable release )
+    {
+        super( in );
+        this.release = release;
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        int b = super.read();
+        if ( b == -1 )
+        {
+            release();
+        }
+        return b;
+    }
+    
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        int n = super.read( b, off, len );
+        if ( n == -1 )
+        {
+            release();
+        }
+        return n;
+    }
+    
+    @Override
+    public long transferTo( WritableByteChannel target ) throws IOException
+    {
+        long transferred = in instanceof TransferableContent ?
+            ( ( TransferableContent ) in ).transferTo( target ) : ChannelCopy.copy( in, target );
+        release();
+        return transferred;
+    }
+    
+    @Override
+    public void close()
+    {
+        release();
+    }
+    
+    private synchronized void release()
+    {
+        if ( released )
+        {
+            return;
+        }
+        released = true;
+        release.run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.response.ResponsePart;
+import com.github.argsfxs.deneb.util.PullPublisher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * This class is used to publish the response to a request to a single subscriber.<br/>
+ * The request is only sent once the subscriber has requested the header, which is published
+ * without blocking a thread. The content of a success response follows in chunks, each read from
+ * the connection only when the subscriber has requested it.
+ */
+class RequestPublisher extends PullPublisher<ResponsePart>
+{
+    private final GeminiClient client;
+    
+    private final GeminiRequest request;
+    
+    // read by a cancelling thread to release the connection
+    private volatile CompletableFuture<GeminiResponse> future;
+    
+    private volatile GeminiResponse response;
+    
+    RequestPublisher( GeminiClient client, GeminiRequest request, Executor executor )
+    {
+        super( executor );
+        this.client = client;
+        this.request = request;
+    }
+    
+    @Override
+    protected boolean isReady()
+    {
+        if ( future == null )
+        {
+            future = client.sendAsync( request );
+            future.whenComplete( ( r, e ) -> signal() );
+        }
+        return future.isDone();
+    }
+    
+    @Override
+    protected ResponsePart pull() throws IOException
+    {
+        if ( response == null )
+        {
+            try
+            {
+                response = future.join();
+            }
+            catch ( CompletionException e )
+            {
+                throw e.getCause() instanceof RuntimeException ?
+                    ( RuntimeException ) e.getCause() : e;
+            }
+            return new ResponsePart( response );
+        }
+        if ( !( response instanceof GeminiSuccessResponse ) )
+        {
+            return null;
+        }
+        ByteBuffer chunk = ( ( GeminiSuccessResponse ) response ).readChunk();
+        return chunk == null ? null : new ResponsePart( chunk );
+    }
+    
+    @Override
+    protected void release()
+    {
+        GeminiResponse response = this.response;
+        CompletableFuture<GeminiResponse> future = this.future;
+        if ( response != null )
+        {
+            response.close();
+        }
+        else if ( future != null )
+        {
+            // the header hasn't been published yet, the response is closed once it arrives
+            future.thenAccept( GeminiResponse::close );
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.argsfxs.deneb.response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class represents the content following a response header.<br/>
+ * The bytes read together with the header are returned first, followed by the rest of the server
+ * stream. Unlike a {@link java.io.SequenceInputStream}, the content can still be transferred to a
+ * channel straight from the buffers of the server stream.
+ */
+class ContentInputStream extends InputStream implements TransferableContent
+{
+    private final ByteBuffer head;
+    
+    private final InputStream in;
+    
+    ContentInputStream( byte[] head, InputStream in )
+    {
+        this.head = ByteBuffer.wrap( head );
+        this.in = in;
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        return head.hasRemaining() ? head.get() & 0xFF : in.read();
+    }
+    
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        if ( len == 0 )
+        {
+            return 0;
+        }
+        if ( head.hasRemaining() )
+        {
+            int length = Math.min( len, head.remaining() );
+            head.get( b, off, length );
+            return length;
+        }
+        return in.read( b, off, len );
+    }
+    
+    @Override
+    public long skip( long n ) throws IOException
+    {
+        if ( head.hasRemaining() )
+        {
+            int length = ( int ) Math.max( 0, Math.min( n, head.remaining() ) );
+            head.position( head.position() + length );
+            return length;
+        }
+        return in.skip( n );
+    }
+    
+    @Override
+    public int available() throws IOException
+    {
+        return head.hasRemaining() ? head.remaining() : in.available();
+    }
+    
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+    
+    @Override
+    public long transferTo( WritableByteChannel target ) throws IOException
+    {
+        long transferred = 0;
+        while ( head.hasRemaining() )
+        {
+            transferred += target.write( head );
+        }
+        return transferred + GeminiSuccessResponse.transfer( in, target );
+    }
+}
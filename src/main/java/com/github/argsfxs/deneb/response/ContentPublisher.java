@@ -0,0 +1,67 @@
+package com.github.argsfxs.deneb.response;
+
+import com.github.argsfxs.deneb.util.PullPublisher;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+/**
+ * This class is used to publish the content of a success response in chunks.<br/>
+ * A chunk is only read from the connection once the subscriber has requested it, so the
+ * connection stops receiving data when its buffer is full and the subscriber falls behind. The
+ * content can only be subscribed to once.
+ */
+class ContentPublisher extends PullPublisher<ByteBuffer>
+{
+    private static final Logger logger = LogManager.getLogger( ContentPublisher.class );
+    
+    // the largest TLS record
+    private static final int CHUNK_SIZE = 16384;
+    
+    private final InputStream content;
+    
+    ContentPublisher( InputStream content, Executor executor )
+    {
+        super( executor );
+        this.content = content;
+    }
+    
+    /**
+     * Reads the next chunk of content, blocking until data is available.<br/>
+     * Each chunk gets its own buffer, so it can be handed to a subscriber.
+     *
+     * @param content the content
+     * @return the chunk or <code>null</code> at the end of the content
+     * @throws IOException if the content couldn't be read
+     */
+    static ByteBuffer readChunk( InputStream content ) throws IOException
+    {
+        byte[] chunk = new byte[ CHUNK_SIZE ];
+        int n = content.read( chunk );
+        // the connection has been released at the end of the content
+        return n == -1 ? null : ByteBuffer.wrap( chunk, 0, n );
+    }
+    
+    @Override
+    protected ByteBuffer pull() throws IOException
+    {
+        return readChunk( content );
+    }
+    
+    @Override
+    protected void release()
+    {
+        try
+        {
+            content.close();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't close response content: {}", e.getMessage() );
+        }
+    }
+}
@@ -3,9 +3,12 @@ package com.github.argsfxs.deneb.response;
 import com.github.argsfxs.deneb.util.Status;
 
 /**
- * This class represents a generic response. It is the base class for all Gemini responses.
+ * This class represents a generic response. It is the base class for all Gemini responses.<br/>
+ * Only success responses hold the connection to the server, which is released when their content
+ * has been read to the end or the response is closed. The connection of all other responses is
+ * closed as soon as the header has been read.
  */
-public class GeminiResponse
+public class GeminiResponse implements AutoCloseable
 {
     private final Status status;
     
@@ -26,4 +29,12 @@ public class GeminiResponse
     {
         return header;
     }
+    
+    /**
+     * Releases the connection to the server, if the response still holds it.
+     */
+    @Override
+    public void close()
+    {
+    }
 }
@@ -1,6 +1,7 @@
 package com.github.argsfxs.deneb.response;
 
 import com.github.argsfxs.deneb.exception.SocketIOException;
+import com.github.argsfxs.deneb.options.RequestOptions;
 import com.github.argsfxs.deneb.util.MIMEType;
 import com.github.argsfxs.deneb.util.Status;
 import org.apache.commons.lang3.StringUtils;
@@ -33,46 +34,36 @@ public class GeminiResponseFactory
      */
     public static GeminiResponse create( InputStream in )
     {
-        int previous = -1;
-        int current;
-        StringBuilder headerBuilder = new StringBuilder();
-        
-        try
-        {
-            while ( ( current = in.read() ) != -1 )
-            {
-                // check for CR (13) followed by LF (10) without appending
-                // the CR
-                if ( previous == 13 && current == 10 )
-                {
-                    break; // don't append CR or LF
-                }
-                
-                // append previous character (if not CRLF detected in
-                // previous iteration)
-                if ( previous != -1 )
-                {
-                    headerBuilder.append( ( char ) previous );
-                }
-                
-                previous = current;
-            }
-            
-            // append the last character if end of stream is reached (no CRLF
-            // detected)
-            if ( current == -1 && previous != -1 )
-            {
-                headerBuilder.append( ( char ) previous );
-            }
-        }
-        catch ( IOException e )
-        {
-            logger.error( "Exception while reading from socket: {}",
-                e.getMessage() );
-            throw new SocketIOException( e );
-        }
-        
-        String header = headerBuilder.toString();
+        ResponseHeader responseHeader = readHeader( in );
+        return create( responseHeader.getHeader(), responseHeader.getContent() );
+    }
+    
+    /**
+     * Creates a response from an InputStream.<br/>
+     * The content of a success response is limited to the maximum content length and the
+     * minimum transfer rate of the options.
+     *
+     * @param in      the server's input stream
+     * @param options the options of the request
+     * @return the response object
+     */
+    public static GeminiResponse create( InputStream in, RequestOptions options )
+    {
+        ResponseHeader responseHeader = readHeader( in );
+        return create( responseHeader.getHeader(),
+            LimitedInputStream.wrap( responseHeader.getContent(), options ) );
+    }
+    
+    /**
+     * Creates a response from a header that has already been read.<br/>
+     * This is used to restore responses, for example from a cache.
+     *
+     * @param header  the response header without CRLF
+     * @param content the content following the header
+     * @return the response object
+     */
+    public static GeminiResponse create( String header, InputStream content )
+    {
         Status status = Status.fromHeader( header );
         
         switch ( status.getCode() / 10 )
@@ -85,7 +76,7 @@ public class GeminiResponseFactory
             case 2:
             {
                 return new GeminiSuccessResponse( status, header,
-                    MIMEType.from( readMeta( header ) ), in );
+                    MIMEType.from( readMeta( header ) ), content );
             }
             case 3:
             {
@@ -117,6 +108,20 @@ public class GeminiResponseFactory
         }
     }
     
+    private static ResponseHeader readHeader( InputStream in )
+    {
+        try
+        {
+            return ResponseHeader.read( in );
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Exception while reading from socket: {}",
+                e.getMessage() );
+            throw new SocketIOException( e );
+        }
+    }
+    
     private static String readMeta( String header )
     {
         String[] segments = StringUtils.split( header );
@@ -1,15 +1,31 @@
 package com.github.argsfxs.deneb.response;
 
+import com.github.argsfxs.deneb.util.ChannelCopy;
 import com.github.argsfxs.deneb.util.MIMEType;
 import com.github.argsfxs.deneb.util.Status;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 /**
- * This class represents a successful response with the status codes 2x.
+ * This class represents a successful response with the status codes 2x.<br/>
+ * The connection to the server is closed when the content has been read to the end or the
+ * response is closed.
  */
 public class GeminiSuccessResponse extends GeminiResponse
 {
+    private static final Logger logger =
+        LogManager.getLogger( GeminiSuccessResponse.class );
+    
     private final MIMEType mimeType;
     
     private final InputStream content;
@@ -32,4 +48,98 @@ public class GeminiSuccessResponse extends GeminiResponse
         return content;
     }
     
+    /**
+     * Returns a publisher of the remaining content in chunks.<br/>
+     * Chunks are read on the executor and only when the subscriber has requested them, so no
+     * more data is received than the connection buffers while the subscriber falls behind.
+     * Cancelling the subscription closes the connection. The content can only be subscribed to
+     * once and must not be read from {@link #getContent()} at the same time.
+     *
+     * @param executor the executor reading the content and signalling the subscriber
+     * @return the publisher of the content
+     */
+    public Flow.Publisher<ByteBuffer> getContentPublisher( Executor executor )
+    {
+        return new ContentPublisher( content, executor );
+    }
+    
+    /**
+     * Reads the next chunk of the content as it is published by
+     * {@link #getContentPublisher(Executor)}, blocking until data is available.
+     *
+     * @return the chunk or <code>null</code> at the end of the content
+     * @throws IOException if the content couldn't be read
+     */
+    public ByteBuffer readChunk() throws IOException
+    {
+        return ContentPublisher.readChunk( content );
+    }
+    
+    /**
+     * Writes the remaining content to a channel.<br/>
+     * Content received by the NIO transport or served from a {@code DiskResponseCache} is
+     * written straight from the buffers it is kept in, other content is copied in large chunks.
+     * The connection is released when the end of the content has been reached.
+     *
+     * @param target the blocking channel to write to, it is not closed
+     * @return the number of bytes written
+     * @throws IOException if the content couldn't be read or written to the channel
+     */
+    public long transferTo( WritableByteChannel target ) throws IOException
+    {
+        return transfer( content, target );
+    }
+    
+    /**
+     * Saves the remaining content to a file, an existing file is replaced.
+     *
+     * @param path the file to write to
+     * @return the number of bytes written
+     * @throws IOException if the content couldn't be read or the file couldn't be written
+     * @see #transferTo(WritableByteChannel)
+     */
+    public long saveTo( Path path ) throws IOException
+    {
+        try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE ) )
+        {
+            return transferTo( channel );
+        }
+    }
+    
+    /**
+     * Closes the content stream and the connection to the server. Content which hasn't been
+     * read yet is discarded.
+     */
+    @Override
+    public void close()
+    {
+        try
+        {
+            content.close();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't close response content: {}", e.getMessage() );
+        }
+    }
+    
+    /**
+     * Writes the remaining bytes of a stream to a channel, straight from the buffers of the
+     * stream if it supports it.
+     *
+     * @param in     the stream
+     * @param target the channel to write to
+     * @return the number of bytes written
+     * @throws IOException if the stream couldn't be read or written to the channel
+     */
+    static long transfer( InputStream in, WritableByteChannel target ) throws IOException
+    {
+        if ( in instanceof TransferableContent )
+        {
+            return ( ( TransferableContent ) in ).transferTo( target );
+        }
+        return ChannelCopy.copy( in, target );
+    }
+    
 }
@@ -0,0 +1,190 @@
+package com.github.argsfxs.deneb.response;
+
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.util.ChannelCopy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents content which is checked against the limits of the request options.<br/>
+ * Reading fails and the connection is closed as soon as the server sends more content than
+ * allowed or sends it slower than the minimum transfer rate. Only the time spent waiting for the
+ * server is measured, time the caller spends between reads doesn't count.
+ */
+class LimitedInputStream extends InputStream implements TransferableContent
+{
+    private static final Logger logger = LogManager.getLogger( LimitedInputStream.class );
+    
+    // the rate is only checked after waiting this long, so a slow start is tolerated
+    private static final long GRACE_PERIOD = TimeUnit.SECONDS.toNanos( 5 );
+    
+    private final InputStream in;
+    
+    private final long maxLength;
+    
+    private final int minRate;
+    
+    private final long gracePeriod;
+    
+    private long length;
+    
+    private long waited;
+    
+    private IOException failure;
+    
+    LimitedInputStream( InputStream in, long maxLength, int minRate, long gracePeriod )
+    {
+        this.in = in;
+        this.maxLength = maxLength;
+        this.minRate = minRate;
+        this.gracePeriod = gracePeriod;
+    }
+    
+    /**
+     * Wraps content if the options limit it.
+     *
+     * @param in      the content
+     * @param options the options of the request
+     * @return the wrapped content or the given content if it is not limited
+     */
+    static InputStream wrap( InputStream in, RequestOptions options )
+    {
+        if ( options.getMaxContentLength() <= 0 && options.getMinTransferRate() <= 0 )
+        {
+            return in;
+        }
+        return new LimitedInputStream( in, options.getMaxContentLength(),
+            options.getMinTransferRate(), GRACE_PERIOD );
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        if ( failure != null )
+        {
+            throw failure;
+        }
+        long start = System.nanoTime();
+        int b = in.read();
+        waited += System.nanoTime() - start;
+        if ( b != -1 )
+        {
+            length++;
+            check( length );
+        }
+        return b;
+    }
+    
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        if ( failure != null )
+        {
+            throw failure;
+        }
+        if ( len == 0 )
+        {
+            return 0;
+        }
+        // reading a single byte more than allowed detects content exceeding the limit
+        int request = maxLength > 0 ? ( int ) Math.min( len, maxLength - length + 1 ) : len;
+        long start = System.nanoTime();
+        int n = in.read( b, off, request );
+        waited += System.nanoTime() - start;
+        if ( n > 0 )
+        {
+            length += n;
+            check( length );
+        }
+        return n;
+    }
+    
+    @Override
+    public int available() throws IOException
+    {
+        return in.available();
+    }
+    
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+    
+    @Override
+    public long transferTo( WritableByteChannel target ) throws IOException
+    {
+        if ( failure != null )
+        {
+            throw failure;
+        }
+        if ( !( in instanceof TransferableContent ) )
+        {
+            return ChannelCopy.copy( this, target );
+        }
+        long transferred = length;
+        ( ( TransferableContent ) in ).transferTo( new WritableByteChannel()
+        {
+            // the time between two writes is spent waiting for the server
+            private long written = System.nanoTime();
+            
+            @Override
+            public int write( ByteBuffer src ) throws IOException
+            {
+                waited += System.nanoTime() - written;
+                check( length + src.remaining() );
+                int n = target.write( src );
+                length += n;
+                written = System.nanoTime();
+                return n;
+            }
+            
+            @Override
+            public boolean isOpen()
+            {
+                return target.isOpen();
+            }
+            
+            @Override
+            public void close() throws IOException
+            {
+                target.close();
+            }
+        } );
+        return length - transferred;
+    }
+    
+    private void check( long received ) throws IOException
+    {
+        if ( maxLength > 0 && received > maxLength )
+        {
+            fail( "Response content exceeds " + maxLength + " bytes" );
+        }
+        if ( minRate > 0 && waited > gracePeriod &&
+            ( double ) length * TimeUnit.SECONDS.toNanos( 1 ) / waited < minRate )
+        {
+            fail( "Response content received slower than " + minRate + " bytes per second" );
+        }
+    }
+    
+    private void fail( String message ) throws IOException
+    {
+        logger.error( message );
+        failure = new IOException( message );
+        try
+        {
+            in.close();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't close response content: {}", e.getMessage() );
+        }
+        throw failure;
+    }
+}
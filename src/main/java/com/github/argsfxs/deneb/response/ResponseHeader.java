@@ -0,0 +1,102 @@
+package com.github.argsfxs.deneb.response;
+
+import com.github.argsfxs.deneb.exception.SocketIOException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This class is used to read the response header from a server input stream.<br/>
+ * The stream is read in bulk into a buffer instead of byte by byte. Bytes read beyond the header
+ * belong to the content and are handed over to the content stream.
+ */
+final class ResponseHeader
+{
+    // <STATUS><SPACE><META><CR><LF> with META being at most 1024 bytes
+    private static final int MAX_HEADER_LENGTH = 1029;
+    
+    // the header plus room for content
+    private static final int BUFFER_SIZE = 2048;
+    
+    private final String header;
+    
+    private final InputStream content;
+    
+    private ResponseHeader( String header, InputStream content )
+    {
+        this.header = header;
+        this.content = content;
+    }
+    
+    /**
+     * Reads the header line up to CRLF or the end of the stream.
+     *
+     * @param in the server's input stream
+     * @return the header and the remaining content
+     * @throws IOException       when reading from the stream fails
+     * @throws SocketIOException when the header is longer than allowed
+     */
+    static ResponseHeader read( InputStream in ) throws IOException
+    {
+        byte[] buffer = new byte[ BUFFER_SIZE ];
+        int length = 0;
+        int scanned = 0;
+        int n;
+        while ( ( n = in.read( buffer, length, buffer.length - length ) ) != -1 )
+        {
+            length += n;
+            int end = indexOfCRLF( buffer, scanned, Math.min( length, MAX_HEADER_LENGTH ) );
+            if ( end != -1 )
+            {
+                return new ResponseHeader( decode( buffer, end ),
+                    content( in, buffer, end + 2, length ) );
+            }
+            if ( length >= MAX_HEADER_LENGTH )
+            {
+                throw new SocketIOException( new IOException(
+                    "Response header exceeds " + MAX_HEADER_LENGTH + " bytes" ) );
+            }
+            // the CR of a CRLF might be the last byte read
+            scanned = Math.max( 0, length - 1 );
+        }
+        return new ResponseHeader( decode( buffer, length ), in );
+    }
+    
+    private static int indexOfCRLF( byte[] buffer, int from, int to )
+    {
+        for ( int i = from; i < to - 1; i++ )
+        {
+            if ( buffer[ i ] == '\r' && buffer[ i + 1 ] == '\n' )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static String decode( byte[] buffer, int length )
+    {
+        return new String( buffer, 0, length, StandardCharsets.UTF_8 );
+    }
+    
+    private static InputStream content( InputStream in, byte[] buffer, int from, int to )
+    {
+        if ( from == to )
+        {
+            return in;
+        }
+        return new ContentInputStream( Arrays.copyOfRange( buffer, from, to ), in );
+    }
+    
+    String getHeader()
+    {
+        return header;
+    }
+    
+    InputStream getContent()
+    {
+        return content;
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.argsfxs.deneb.response;
+
+import com.github.argsfxs.deneb.util.MIMEType;
+import com.github.argsfxs.deneb.util.Status;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This class represents a part of a response published by a
+ * {@link com.github.argsfxs.deneb.request.GeminiRequest}.<br/>
+ * The first part is the response header, success responses are followed by their content in
+ * chunks.
+ */
+public class ResponsePart
+{
+    private final GeminiResponse response;
+    
+    private final ByteBuffer content;
+    
+    /**
+     * Creates the header part of a response.
+     *
+     * @param response the response
+     */
+    public ResponsePart( GeminiResponse response )
+    {
+        this.response = response;
+        this.content = null;
+    }
+    
+    /**
+     * Creates a content part of a response.
+     *
+     * @param content the chunk of content
+     */
+    public ResponsePart( ByteBuffer content )
+    {
+        this.response = null;
+        this.content = content;
+    }
+    
+    /**
+     * Returns whether this is the header part.
+     *
+     * @return <code>true</code> for the header, <code>false</code> for a chunk of content
+     */
+    public boolean isHeader()
+    {
+        return response != null;
+    }
+    
+    /**
+     * Returns the response of the header part.<br/>
+     * The content of a success response is published in the following parts, so it mustn't be
+     * read from the response.
+     *
+     * @return the response or <code>null</code> for a chunk of content
+     */
+    public GeminiResponse getResponse()
+    {
+        return response;
+    }
+    
+    /**
+     * Returns the status of the header part.
+     *
+     * @return the status or <code>null</code> for a chunk of content
+     */
+    public Status getStatus()
+    {
+        return response == null ? null : response.getStatus();
+    }
+    
+    /**
+     * Returns the MIME type of the header part of a success response.
+     *
+     * @return the MIME type or <code>null</code> for other responses and chunks of content
+     */
+    public MIMEType getMimeType()
+    {
+        return response instanceof GeminiSuccessResponse ?
+            ( ( GeminiSuccessResponse ) response ).getMimeType() : null;
+    }
+    
+    /**
+     * Returns the chunk of content of a content part.
+     *
+     * @return the chunk or <code>null</code> for the header
+     */
+    public ByteBuffer getContent()
+    {
+        return content;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return isHeader() ? response.getHeader() : content.remaining() + " bytes";
+    }
+}
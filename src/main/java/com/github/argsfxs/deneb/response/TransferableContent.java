@@ -0,0 +1,22 @@
+package com.github.argsfxs.deneb.response;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This interface is implemented by content streams which can write their data to a channel
+ * straight from their own buffers, without copying it into a byte array first.
+ *
+ * @see GeminiSuccessResponse#transferTo(WritableByteChannel)
+ */
+public interface TransferableContent
+{
+    /**
+     * Writes the remaining content to a channel until the end of the stream is reached.
+     *
+     * @param target the blocking channel to write to
+     * @return the number of bytes written
+     * @throws IOException if the content couldn't be read or written to the channel
+     */
+    long transferTo( WritableByteChannel target ) throws IOException;
+}
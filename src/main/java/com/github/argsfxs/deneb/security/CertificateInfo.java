@@ -0,0 +1,115 @@
+package com.github.argsfxs.deneb.security;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class represents the values derived from a server certificate for its validation.<br/>
+ * The values are memoized per certificate, so a server presenting the same certificate again
+ * doesn't require hashing and parsing it again. Certificates are compared by their encoded
+ * form, memoized values are dropped once the certificate has expired.
+ */
+final class CertificateInfo
+{
+    private static final int MAX_CACHE_SIZE = 1024;
+    
+    private static final Map<X509Certificate, CertificateInfo> cache = new ConcurrentHashMap<>();
+    
+    private final String host;
+    
+    private final Fingerprint fingerprint;
+    
+    private final Date notBefore;
+    
+    private final Date notAfter;
+    
+    // the validity window in whole days, as checked by CertificateValidation
+    private final long validFrom;
+    
+    private final long validUntil;
+    
+    private CertificateInfo( X509Certificate cert ) throws CertificateEncodingException
+    {
+        this.host = StringUtils.substringAfter( cert.getSubjectX500Principal().getName(), "=" );
+        this.fingerprint = Fingerprint.of( DigestUtils.sha256( cert.getEncoded() ) );
+        this.notBefore = cert.getNotBefore();
+        this.notAfter = cert.getNotAfter();
+        // without validity dates the certificate is never considered valid nor memoized
+        ZoneId zone = ZoneId.systemDefault();
+        this.validFrom = notBefore == null ? Long.MAX_VALUE : notBefore.toInstant().atZone( zone )
+            .toLocalDate().atStartOfDay( zone ).toInstant().toEpochMilli();
+        this.validUntil = notAfter == null ? Long.MIN_VALUE : notAfter.toInstant().atZone( zone )
+            .toLocalDate().plusDays( 1 ).atStartOfDay( zone ).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * Returns the values derived from a certificate, using the memoized values if available.
+     *
+     * @param cert the server certificate
+     * @return the certificate values
+     * @throws CertificateEncodingException when the certificate can't be encoded
+     */
+    static CertificateInfo of( X509Certificate cert ) throws CertificateEncodingException
+    {
+        CertificateInfo info = cache.get( cert );
+        if ( info != null && !info.isExpired() )
+        {
+            return info;
+        }
+        info = new CertificateInfo( cert );
+        if ( info.isExpired() )
+        {
+            cache.remove( cert );
+            return info;
+        }
+        if ( cache.size() >= MAX_CACHE_SIZE )
+        {
+            cache.clear();
+        }
+        cache.put( cert, info );
+        return info;
+    }
+    
+    private boolean isExpired()
+    {
+        return System.currentTimeMillis() >= validUntil;
+    }
+    
+    /**
+     * Returns whether the current date lies within the validity dates of the certificate.
+     *
+     * @return <code>true</code> if the certificate is valid today
+     */
+    boolean isValidToday()
+    {
+        long now = System.currentTimeMillis();
+        return now >= validFrom && now < validUntil;
+    }
+    
+    String getHost()
+    {
+        return host;
+    }
+    
+    Fingerprint getFingerprint()
+    {
+        return fingerprint;
+    }
+    
+    Date getNotBefore()
+    {
+        return notBefore;
+    }
+    
+    Date getNotAfter()
+    {
+        return notAfter;
+    }
+}
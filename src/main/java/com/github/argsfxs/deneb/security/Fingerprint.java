@@ -0,0 +1,157 @@
+package com.github.argsfxs.deneb.security;
+
+import java.io.Serializable;
+
+/**
+ * <p>This class represents the SHA-256 fingerprint of a certificate.</p>
+ * <p>The fingerprint is kept in its binary form of 32 bytes, the hexadecimal representation
+ * is only created on demand. Fingerprints are compared in constant time.</p>
+ */
+public final class Fingerprint implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * The length of a fingerprint in bytes.
+     */
+    public static final int LENGTH = 32;
+    
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+    
+    // the digest as four big-endian words, which avoids the overhead of an array per instance
+    private final long word0;
+    
+    private final long word1;
+    
+    private final long word2;
+    
+    private final long word3;
+    
+    private Fingerprint( long word0, long word1, long word2, long word3 )
+    {
+        this.word0 = word0;
+        this.word1 = word1;
+        this.word2 = word2;
+        this.word3 = word3;
+    }
+    
+    /**
+     * Creates a fingerprint from a SHA-256 digest.
+     *
+     * @param digest the 32 bytes of the digest
+     * @return the fingerprint
+     * @throws IllegalArgumentException if the digest isn't 32 bytes long
+     */
+    public static Fingerprint of( byte[] digest )
+    {
+        if ( digest == null || digest.length != LENGTH )
+        {
+            throw new IllegalArgumentException( "A fingerprint must be " + LENGTH + " bytes " +
+                "long" );
+        }
+        return new Fingerprint( word( digest, 0 ), word( digest, 8 ), word( digest, 16 ),
+            word( digest, 24 ) );
+    }
+    
+    /**
+     * Creates a fingerprint from its hexadecimal representation. Upper and lower case digits
+     * are accepted.
+     *
+     * @param hex the 64 hexadecimal digits
+     * @return the fingerprint
+     * @throws IllegalArgumentException if the string isn't a valid fingerprint
+     */
+    public static Fingerprint fromHex( String hex )
+    {
+        if ( hex == null || hex.length() != LENGTH * 2 )
+        {
+            throw new IllegalArgumentException( "A fingerprint must be " + LENGTH * 2 + " hex " +
+                "digits long" );
+        }
+        long[] words = new long[ 4 ];
+        for ( int i = 0; i < hex.length(); i++ )
+        {
+            int digit = Character.digit( hex.charAt( i ), 16 );
+            if ( digit < 0 )
+            {
+                throw new IllegalArgumentException( "Invalid hex digit in fingerprint: " + hex );
+            }
+            words[ i / 16 ] = words[ i / 16 ] << 4 | digit;
+        }
+        return new Fingerprint( words[ 0 ], words[ 1 ], words[ 2 ], words[ 3 ] );
+    }
+    
+    /**
+     * Returns the bytes of the fingerprint.
+     *
+     * @return a new array of 32 bytes
+     */
+    public byte[] toByteArray()
+    {
+        byte[] bytes = new byte[ LENGTH ];
+        long[] words = { word0, word1, word2, word3 };
+        for ( int i = 0; i < LENGTH; i++ )
+        {
+            bytes[ i ] = ( byte ) ( words[ i / 8 ] >>> 56 - i % 8 * 8 );
+        }
+        return bytes;
+    }
+    
+    /**
+     * Returns the fingerprint as upper-case hexadecimal digits.
+     *
+     * @return the 64 hexadecimal digits
+     */
+    public String toHex()
+    {
+        char[] chars = new char[ LENGTH * 2 ];
+        long[] words = { word0, word1, word2, word3 };
+        for ( int i = 0; i < chars.length; i++ )
+        {
+            chars[ i ] = HEX_DIGITS[ ( int ) ( words[ i / 16 ] >>> 60 - i % 16 * 4 ) & 0xF ];
+        }
+        return new String( chars );
+    }
+    
+    /**
+     * Compares two fingerprints in constant time, so the time taken doesn't reveal how many
+     * bytes match.
+     *
+     * @param o the other fingerprint
+     * @return <code>true</code> if both fingerprints are equal
+     */
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( !( o instanceof Fingerprint ) )
+        {
+            return false;
+        }
+        Fingerprint other = ( Fingerprint ) o;
+        return ( word0 ^ other.word0 | word1 ^ other.word1 | word2 ^ other.word2
+            | word3 ^ other.word3 ) == 0;
+    }
+    
+    @Override
+    public int hashCode()
+    {
+        // the digest is uniformly distributed, so any part of it is a good hash
+        return ( int ) ( word0 ^ word0 >>> 32 );
+    }
+    
+    @Override
+    public String toString()
+    {
+        return toHex();
+    }
+    
+    private static long word( byte[] bytes, int offset )
+    {
+        long word = 0;
+        for ( int i = offset; i < offset + 8; i++ )
+        {
+            word = word << 8 | bytes[ i ] & 0xFF;
+        }
+        return word;
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.argsfxs.deneb.security;
+
+import com.github.argsfxs.deneb.options.RequestOptions;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>This class is used to obtain the {@link SSLContext} for a trust configuration.</p>
+ * <p>A context is built only once per configuration and shared by all connections using it. The
+ * server host and port are resolved per connection by the {@link ValidationTrustManager}.</p>
+ * <p>Each context keeps a bounded cache of client sessions per server host and port, so
+ * subsequent connections to the same server can resume the TLS session.</p>
+ */
+public class SSLContextFactory
+{
+    private static final int MAX_CONTEXTS = 32;
+    
+    private final Map<ContextKey, ContextEntry> contexts =
+        new LinkedHashMap<>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<ContextKey, ContextEntry> eldest )
+            {
+                return size() > MAX_CONTEXTS;
+            }
+        };
+    
+    /**
+     * Returns the context for the trust configuration of the given options, creating it if
+     * necessary.
+     *
+     * @param options the request options
+     * @return the shared context
+     * @throws GeneralSecurityException when the context can't be initialized
+     */
+    public SSLContext getContext( RequestOptions options ) throws GeneralSecurityException
+    {
+        return getEntry( options ).context;
+    }
+    
+    /**
+     * Returns the socket factory for the trust configuration of the given options, creating it
+     * if necessary.
+     *
+     * @param options the request options
+     * @return the shared socket factory
+     * @throws GeneralSecurityException when the context can't be initialized
+     */
+    public SSLSocketFactory getSocketFactory( RequestOptions options ) throws GeneralSecurityException
+    {
+        return getEntry( options ).socketFactory;
+    }
+    
+    private synchronized ContextEntry getEntry( RequestOptions options ) throws GeneralSecurityException
+    {
+        ContextKey key = new ContextKey( options );
+        ContextEntry entry = contexts.get( key );
+        if ( entry == null )
+        {
+            entry = new ContextEntry( createContext( options ) );
+            contexts.put( key, entry );
+        }
+        return entry;
+    }
+    
+    private static SSLContext createContext( RequestOptions options ) throws GeneralSecurityException
+    {
+        // the trust manager outlives the request, so it gets its own copy of the options
+        SSLContext sc = SSLContext.getInstance( "SSL" );
+        sc.init( null,
+            new TrustManager[]{ new ValidationTrustManager( new RequestOptions( options ) ) },
+            null );
+        SSLSessionContext sessions = sc.getClientSessionContext();
+        sessions.setSessionCacheSize( options.getSessionCacheSize() );
+        sessions.setSessionTimeout( options.getSessionTimeout() );
+        return sc;
+    }
+    
+    private static class ContextEntry
+    {
+        private final SSLContext context;
+        
+        private final SSLSocketFactory socketFactory;
+        
+        private ContextEntry( SSLContext context )
+        {
+            this.context = context;
+            this.socketFactory = context.getSocketFactory();
+        }
+    }
+    
+    private static class ContextKey
+    {
+        private final boolean validationEnabled;
+        
+        private final boolean certificateRenewalCheckEnabled;
+        
+        private final int certificateGracePeriod;
+        
+        private final TrustedCertificateSupplier tcs;
+        
+        private final TrustedCertificateConsumer tcc;
+        
+        private final int sessionCacheSize;
+        
+        private final int sessionTimeout;
+        
+        private ContextKey( RequestOptions options )
+        {
+            this.validationEnabled = options.isValidationEnabled();
+            this.certificateRenewalCheckEnabled = options.isCertificateRenewalCheckEnabled();
+            this.certificateGracePeriod = options.getCertificateGracePeriod();
+            this.tcs = options.getTrustedCertificateSupplier();
+            this.tcc = options.getTrustedCertificateConsumer();
+            this.sessionCacheSize = options.getSessionCacheSize();
+            this.sessionTimeout = options.getSessionTimeout();
+        }
+        
+        @Override
+        public boolean equals( Object o )
+        {
+            if ( this == o ) return true;
+            if ( o == null || getClass() != o.getClass() ) return false;
+            ContextKey key = ( ContextKey ) o;
+            return validationEnabled == key.validationEnabled
+                && certificateRenewalCheckEnabled == key.certificateRenewalCheckEnabled
+                && certificateGracePeriod == key.certificateGracePeriod
+                && tcs == key.tcs
+                && tcc == key.tcc
+                && sessionCacheSize == key.sessionCacheSize
+                && sessionTimeout == key.sessionTimeout;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash( validationEnabled, certificateRenewalCheckEnabled,
+                certificateGracePeriod, System.identityHashCode( tcs ),
+                System.identityHashCode( tcc ), sessionCacheSize, sessionTimeout );
+        }
+    }
+}
@@ -1,39 +1,86 @@
 package com.github.argsfxs.deneb.security;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.Date;
 
 /**
  * This class represents a trusted certificate that can be stored in a database and retrieved
- * to compare it to the current server certificate.
+ * to compare it to the current server certificate.<br/>
+ * The fingerprint is kept in its binary form, see {@link Fingerprint}. Fingerprints which aren't
+ * SHA-256 digests in hexadecimal digits are still accepted, for example from databases written
+ * by older versions, but never match a server certificate.<br/>
+ * The serialized form is still the one of older versions, with the expiry date as a
+ * {@link Date} and the fingerprint as hexadecimal digits, so serialized databases stay readable.
  */
 public class TrustedCertificate implements Serializable
 {
     private static final long serialVersionUID = 1L;
     
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField( "host", String.class ),
+        new ObjectStreamField( "port", int.class ),
+        new ObjectStreamField( "expiryDate", Date.class ),
+        new ObjectStreamField( "fingerPrint", String.class )
+    };
+    
+    // the expiry date is unknown
+    private static final long NO_EXPIRY_DATE = Long.MIN_VALUE;
+    
     private final String host;
     
     private final int port;
     
-    private final Date expiryDate;
+    private final long expiryDate;
+    
+    private final Fingerprint fingerPrint;
     
-    private final String fingerPrint;
+    // only set if the fingerprint isn't a valid SHA-256 fingerprint
+    private final String invalidFingerPrint;
+    
+    // the certificate created from the serialized fields, it replaces the deserialized object
+    private transient TrustedCertificate resolved;
     
     /**
      * Creates a new trusted certificate object to be stored in a database.
      *
      * @param host        the certificate host
      * @param port        the certificate port
-     * @param expiryDate  the certificate expiry date
+     * @param expiryDate  the certificate expiry date, <code>null</code> if unknown
      * @param fingerPrint the certificate fingerprint
      */
+    public TrustedCertificate( String host, int port, Date expiryDate,
+        Fingerprint fingerPrint )
+    {
+        this( host, port, expiryDate, null, fingerPrint );
+    }
+    
+    /**
+     * Creates a new trusted certificate object to be stored in a database.
+     *
+     * @param host        the certificate host
+     * @param port        the certificate port
+     * @param expiryDate  the certificate expiry date, <code>null</code> if unknown
+     * @param fingerPrint the certificate fingerprint as hexadecimal digits, any other value is
+     *                    kept as is and never matches a server certificate
+     */
     public TrustedCertificate( String host, int port, Date expiryDate,
         String fingerPrint )
+    {
+        this( host, port, expiryDate, fingerPrint, parse( fingerPrint ) );
+    }
+    
+    private TrustedCertificate( String host, int port, Date expiryDate, String hexFingerPrint,
+        Fingerprint fingerPrint )
     {
         this.host = host;
         this.port = port;
-        this.expiryDate = expiryDate;
+        this.expiryDate = expiryDate == null ? NO_EXPIRY_DATE : expiryDate.getTime();
         this.fingerPrint = fingerPrint;
+        this.invalidFingerPrint = fingerPrint == null ? hexFingerPrint : null;
     }
     
     /**
@@ -59,20 +106,70 @@ public class TrustedCertificate implements Serializable
     /**
      * Returns the expiry date of the certificate.
      *
-     * @return the expiry date
+     * @return the expiry date or <code>null</code> if unknown
      */
     public Date getExpiryDate()
     {
-        return expiryDate;
+        return expiryDate == NO_EXPIRY_DATE ? null : new Date( expiryDate );
     }
     
     /**
-     * Returns the certificate fingerprint.
+     * Returns the certificate fingerprint as upper-case hexadecimal digits. A fingerprint which
+     * isn't a valid SHA-256 fingerprint is returned as it has been given.
      *
      * @return the fingerprint
      */
     public String getFingerPrint()
+    {
+        return fingerPrint != null ? fingerPrint.toHex() : invalidFingerPrint;
+    }
+    
+    /**
+     * Returns the certificate fingerprint in its binary form.
+     *
+     * @return the fingerprint or <code>null</code> if it isn't a valid SHA-256 fingerprint
+     */
+    public Fingerprint getBinaryFingerPrint()
     {
         return fingerPrint;
     }
+    
+    private void writeObject( ObjectOutputStream out ) throws IOException
+    {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put( "host", host );
+        fields.put( "port", port );
+        fields.put( "expiryDate", getExpiryDate() );
+        fields.put( "fingerPrint", getFingerPrint() );
+        out.writeFields();
+    }
+    
+    private void readObject( ObjectInputStream in ) throws IOException, ClassNotFoundException
+    {
+        ObjectInputStream.GetField fields = in.readFields();
+        resolved = new TrustedCertificate( ( String ) fields.get( "host", null ),
+            fields.get( "port", 0 ), ( Date ) fields.get( "expiryDate", null ),
+            ( String ) fields.get( "fingerPrint", null ) );
+    }
+    
+    private Object readResolve()
+    {
+        return resolved;
+    }
+    
+    private static Fingerprint parse( String fingerPrint )
+    {
+        if ( fingerPrint == null )
+        {
+            return null;
+        }
+        try
+        {
+            return Fingerprint.fromHex( fingerPrint );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return null;
+        }
+    }
 }
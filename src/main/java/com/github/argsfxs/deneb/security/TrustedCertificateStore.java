@@ -0,0 +1,335 @@
+package com.github.argsfxs.deneb.security;
+
+import com.github.argsfxs.deneb.exception.CertificateStoreException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>This class represents a store of trusted certificates for the TOFU approach (trust on
+ * first use).</p>
+ * <p>The store is both the {@link TrustedCertificateSupplier} and the
+ * {@link TrustedCertificateConsumer} of the request options. Certificates are looked up in
+ * memory, so validating a server certificate doesn't need any I/O. If a journal file is given,
+ * accepted certificates are appended to it and read back when the store is opened again. The
+ * journal is compacted periodically if it contains replaced entries, and right away once it
+ * contains more replaced entries than current ones.</p>
+ */
+public class TrustedCertificateStore implements TrustedCertificateSupplier,
+    TrustedCertificateConsumer, AutoCloseable
+{
+    private static final Logger logger = LogManager.getLogger( TrustedCertificateStore.class );
+    
+    // replaced entries tolerated in the journal before it is compacted
+    private static final int COMPACTION_THRESHOLD = 1024;
+    
+    private final Map<String, TrustedCertificate> certificates = new ConcurrentHashMap<>();
+    
+    private final Path journal;
+    
+    private Writer writer;
+    
+    private int journalEntries;
+    
+    private ScheduledFuture<?> compaction;
+    
+    /**
+     * Creates a new store which is kept in memory only.
+     */
+    public TrustedCertificateStore()
+    {
+        this.journal = null;
+    }
+    
+    /**
+     * Opens a store persisted in a journal file, which is compacted every hour.<br/>
+     * The file is created if it doesn't exist.
+     *
+     * @param journal the journal file
+     */
+    public TrustedCertificateStore( Path journal )
+    {
+        this( journal, 3600 );
+    }
+    
+    /**
+     * Opens a store persisted in a journal file.<br/>
+     * The file is created if it doesn't exist.
+     *
+     * @param journal            the journal file
+     * @param compactionInterval the number of seconds between two compactions of the journal,
+     *                           <code>0</code> disables periodic compaction
+     */
+    public TrustedCertificateStore( Path journal, int compactionInterval )
+    {
+        this.journal = journal;
+        try
+        {
+            if ( Files.exists( journal ) )
+            {
+                load();
+            }
+            writer = openWriter();
+            if ( needsCompaction() )
+            {
+                compact();
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't open certificate journal {}: {}", journal,
+                e.getMessage() );
+            throw new CertificateStoreException( e );
+        }
+        if ( compactionInterval > 0 )
+        {
+            compaction = CompactorHolder.compactor.scheduleWithFixedDelay(
+                this::compactReplaced, compactionInterval, compactionInterval,
+                TimeUnit.SECONDS );
+        }
+    }
+    
+    @Override
+    public TrustedCertificate get( String hostname, int port )
+    {
+        return certificates.get( key( hostname, port ) );
+    }
+    
+    /**
+     * Stores a trusted certificate, replacing a certificate stored for the same host and port.
+     *
+     * @param trustedCertificate the valid certificate to store
+     */
+    @Override
+    public void accept( TrustedCertificate trustedCertificate )
+    {
+        if ( journal == null )
+        {
+            put( trustedCertificate );
+            return;
+        }
+        append( trustedCertificate );
+    }
+    
+    /**
+     * Returns the number of stored certificates.
+     *
+     * @return the number of certificates
+     */
+    public int size()
+    {
+        return certificates.size();
+    }
+    
+    /**
+     * Rewrites the journal file so it only contains the current certificates.
+     */
+    public synchronized void compact()
+    {
+        if ( journal == null || writer == null )
+        {
+            return;
+        }
+        Path tmp = journal.resolveSibling( journal.getFileName() + ".tmp" );
+        try
+        {
+            writer.close();
+            int entries = 0;
+            try ( Writer out = Files.newBufferedWriter( tmp, StandardCharsets.UTF_8 ) )
+            {
+                for ( TrustedCertificate certificate : certificates.values() )
+                {
+                    write( out, certificate );
+                    entries++;
+                }
+            }
+            Files.move( tmp, journal, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE );
+            journalEntries = entries;
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't compact certificate journal: {}", e.getMessage() );
+        }
+        finally
+        {
+            try
+            {
+                writer = openWriter();
+            }
+            catch ( IOException e )
+            {
+                logger.error( "Couldn't reopen certificate journal: {}", e.getMessage() );
+                writer = null;
+            }
+        }
+    }
+    
+    /**
+     * Closes the journal file. The stored certificates can still be retrieved.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if ( compaction != null )
+        {
+            compaction.cancel( false );
+            compaction = null;
+        }
+        if ( writer == null )
+        {
+            return;
+        }
+        try
+        {
+            writer.close();
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't close certificate journal: {}", e.getMessage() );
+        }
+        writer = null;
+    }
+    
+    private synchronized void append( TrustedCertificate certificate )
+    {
+        // the journal is written in the same order as the certificates are replaced
+        put( certificate );
+        if ( writer == null )
+        {
+            logger.error( "Certificate journal closed, {}:{} is not persisted.",
+                certificate.getHost(), certificate.getPort() );
+            return;
+        }
+        try
+        {
+            write( writer, certificate );
+            writer.flush();
+            journalEntries++;
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't write certificate journal: {}", e.getMessage() );
+            return;
+        }
+        if ( needsCompaction() )
+        {
+            compact();
+        }
+    }
+    
+    private synchronized void compactReplaced()
+    {
+        if ( journalEntries > certificates.size() )
+        {
+            compact();
+        }
+    }
+    
+    private boolean needsCompaction()
+    {
+        int replaced = journalEntries - certificates.size();
+        return replaced > COMPACTION_THRESHOLD && replaced > certificates.size();
+    }
+    
+    private void load() throws IOException
+    {
+        try ( BufferedReader in = Files.newBufferedReader( journal, StandardCharsets.UTF_8 ) )
+        {
+            String line;
+            while ( ( line = in.readLine() ) != null )
+            {
+                TrustedCertificate certificate = parse( line );
+                if ( certificate == null )
+                {
+                    logger.error( "Skipping invalid certificate journal entry: {}", line );
+                    continue;
+                }
+                put( certificate );
+                journalEntries++;
+            }
+        }
+    }
+    
+    private void put( TrustedCertificate certificate )
+    {
+        certificates.put( key( certificate.getHost(), certificate.getPort() ), certificate );
+    }
+    
+    private Writer openWriter() throws IOException
+    {
+        return Files.newBufferedWriter( journal, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND );
+    }
+    
+    // <HOST><TAB><PORT><TAB><EXPIRY MILLIS><TAB><FINGERPRINT><LF>, an unknown expiry is empty
+    private static void write( Writer out, TrustedCertificate certificate ) throws IOException
+    {
+        Date expiryDate = certificate.getExpiryDate();
+        out.write( certificate.getHost() );
+        out.write( '\t' );
+        out.write( Integer.toString( certificate.getPort() ) );
+        out.write( '\t' );
+        out.write( expiryDate == null ? "" : Long.toString( expiryDate.getTime() ) );
+        out.write( '\t' );
+        out.write( certificate.getFingerPrint() );
+        out.write( '\n' );
+    }
+    
+    private static TrustedCertificate parse( String line )
+    {
+        String[] fields = line.split( "\t" );
+        if ( fields.length != 4 )
+        {
+            return null;
+        }
+        try
+        {
+            Date expiryDate = fields[ 2 ].isEmpty() ? null :
+                new Date( Long.parseLong( fields[ 2 ] ) );
+            return new TrustedCertificate( fields[ 0 ], Integer.parseInt( fields[ 1 ] ),
+                expiryDate, fields[ 3 ] );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return null;
+        }
+    }
+    
+    private static String key( String hostname, int port )
+    {
+        return hostname.toLowerCase( Locale.ROOT ) + ':' + port;
+    }
+    
+    private static ScheduledExecutorService createCompactor()
+    {
+        ScheduledThreadPoolExecutor compactor = new ScheduledThreadPoolExecutor( 1, r -> {
+            Thread thread = new Thread( r, "deneb-certificate-compaction" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        compactor.setRemoveOnCancelPolicy( true );
+        return compactor;
+    }
+    
+    private static class CompactorHolder
+    {
+        private static final ScheduledExecutorService compactor = createCompactor();
+    }
+}
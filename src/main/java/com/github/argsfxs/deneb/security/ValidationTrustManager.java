@@ -1,24 +1,30 @@
 package com.github.argsfxs.deneb.security;
 
 import com.github.argsfxs.deneb.exception.CertificateValidationException;
+import com.github.argsfxs.deneb.exception.InvalidCertificateException;
 import com.github.argsfxs.deneb.options.RequestOptions;
-import org.apache.commons.codec.digest.DigestUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import javax.net.ssl.X509TrustManager;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.net.Socket;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
 import java.util.Date;
 
-import static com.github.argsfxs.deneb.security.CertificateValidation.validate;
+import static com.github.argsfxs.deneb.security.CertificateValidation.validateDate;
 import static com.github.argsfxs.deneb.security.CertificateValidation.validateGracePeriod;
+import static com.github.argsfxs.deneb.security.CertificateValidation.validateHost;
 
 /**
- * This class is used to validate the SSL connection.
+ * This class is used to validate the SSL connection.<br/>
+ * When the trust manager is shared by several connections, the server host and port are
+ * resolved from the socket or engine of the connection being validated.
  */
-public class ValidationTrustManager implements X509TrustManager
+public class ValidationTrustManager extends X509ExtendedTrustManager
 {
     private static final Logger logger =
         LogManager.getLogger( ValidationTrustManager.class );
@@ -44,12 +50,37 @@ public class ValidationTrustManager implements X509TrustManager
         this.options = options;
     }
     
+    /**
+     * Create a new trust manager for validation of SSL connections to any server.<br/>
+     * The server host and port are resolved per connection.
+     *
+     * @param options the request options
+     */
+    public ValidationTrustManager( RequestOptions options )
+    {
+        this( null, -1, options );
+    }
+    
     @Override
     public void checkClientTrusted( X509Certificate[] chain, String authType )
     {
         // do nothing
     }
     
+    @Override
+    public void checkClientTrusted( X509Certificate[] chain, String authType,
+        Socket socket )
+    {
+        // do nothing
+    }
+    
+    @Override
+    public void checkClientTrusted( X509Certificate[] chain, String authType,
+        SSLEngine engine )
+    {
+        // do nothing
+    }
+    
     /**
      * Validates the server certificate.
      *
@@ -60,6 +91,54 @@ public class ValidationTrustManager implements X509TrustManager
     @Override
     public void checkServerTrusted( X509Certificate[] chain,
         String authType ) throws CertificateEncodingException
+    {
+        checkServerTrusted( chain, host, port );
+    }
+    
+    /**
+     * Validates the server certificate of a socket connection.
+     *
+     * @param chain    the peer certificate chain
+     * @param authType the key exchange algorithm used
+     * @param socket   the socket used for the connection
+     * @throws CertificateEncodingException when the certificate can't be encoded
+     */
+    @Override
+    public void checkServerTrusted( X509Certificate[] chain, String authType,
+        Socket socket ) throws CertificateEncodingException
+    {
+        SSLSession session = socket instanceof SSLSocket
+            ? ( ( SSLSocket ) socket ).getHandshakeSession() : null;
+        if ( session == null || session.getPeerHost() == null )
+        {
+            checkServerTrusted( chain, host, port );
+            return;
+        }
+        checkServerTrusted( chain, session.getPeerHost(), session.getPeerPort() );
+    }
+    
+    /**
+     * Validates the server certificate of an engine connection.
+     *
+     * @param chain    the peer certificate chain
+     * @param authType the key exchange algorithm used
+     * @param engine   the engine used for the connection
+     * @throws CertificateEncodingException when the certificate can't be encoded
+     */
+    @Override
+    public void checkServerTrusted( X509Certificate[] chain, String authType,
+        SSLEngine engine ) throws CertificateEncodingException
+    {
+        if ( engine == null || engine.getPeerHost() == null )
+        {
+            checkServerTrusted( chain, host, port );
+            return;
+        }
+        checkServerTrusted( chain, engine.getPeerHost(), engine.getPeerPort() );
+    }
+    
+    private void checkServerTrusted( X509Certificate[] chain, String host,
+        int port ) throws CertificateEncodingException
     {
         // do we need to check the certificate?
         if ( !options.isValidationEnabled() )
@@ -75,16 +154,16 @@ public class ValidationTrustManager implements X509TrustManager
                 "received." );
         }
         
-        X509Certificate cert = chain[ 0 ];
-        String certHost =
-            StringUtils.substringAfter( cert.getSubjectX500Principal().getName(), "=" );
-        Date notBefore = cert.getNotBefore();
+        CertificateInfo cert = CertificateInfo.of( chain[ 0 ] );
         Date notAfter = cert.getNotAfter();
-        String fingerprint =
-            StringUtils.upperCase( DigestUtils.sha256Hex( cert.getEncoded() ) );
+        Fingerprint fingerprint = cert.getFingerprint();
         
         // validate hostname and validity dates
-        validate( certHost, host, notBefore, notAfter );
+        validateHost( cert.getHost(), host );
+        if ( !cert.isValidToday() )
+        {
+            validateDate( cert.getNotBefore(), notAfter );
+        }
         
         // get trusted certificate from db
         TrustedCertificateSupplier tcs =
@@ -113,14 +192,21 @@ public class ValidationTrustManager implements X509TrustManager
             return;
         }
         
-        // compare fingerprints
-        if ( !StringUtils.equals( tc.getFingerPrint(), fingerprint ) )
+        // compare fingerprints, one which isn't a SHA-256 fingerprint never matches
+        if ( !fingerprint.equals( tc.getBinaryFingerPrint() ) )
         {
             // check expiry date for MITM protection
             if ( options.isCertificateRenewalCheckEnabled() )
             {
-                validateGracePeriod( options.getCertificateGracePeriod(),
-                    tc.getExpiryDate() );
+                Date expiryDate = tc.getExpiryDate();
+                if ( expiryDate == null )
+                {
+                    logger.error( "No expiry date of the trusted certificate for {}:{}, " +
+                        "can't check the renewal.", host, port );
+                    throw new InvalidCertificateException( "Certificate renewal can't be " +
+                        "checked without the expiry date of the trusted certificate." );
+                }
+                validateGracePeriod( options.getCertificateGracePeriod(), expiryDate );
             }
         }
     }
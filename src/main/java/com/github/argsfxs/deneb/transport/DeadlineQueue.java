@@ -0,0 +1,149 @@
+package com.github.argsfxs.deneb.transport;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the deadlines of the connections of a {@link SelectorLoop}.<br/>
+ * It is a binary heap ordered by deadline, each connection remembers its index in the heap, so
+ * adding, moving and removing a deadline costs O(log n) and the connections whose deadline has
+ * passed are found without visiting the others.
+ * <br/>
+ * Must only be used on the loop thread.
+ */
+class DeadlineQueue
+{
+    private NioConnection[] heap = new NioConnection[ 16 ];
+    
+    private int size;
+    
+    boolean isEmpty()
+    {
+        return size == 0;
+    }
+    
+    /**
+     * @return the earliest deadline as returned by {@link System#nanoTime()}, the queue must not
+     * be empty
+     */
+    long peekDeadline()
+    {
+        return heap[ 0 ].getDeadline();
+    }
+    
+    /**
+     * Removes the connection with the earliest deadline if that deadline has passed.
+     *
+     * @param now the current time as returned by {@link System#nanoTime()}
+     * @return the connection or <code>null</code> if no deadline has passed
+     */
+    NioConnection pollExpired( long now )
+    {
+        if ( size == 0 || now - heap[ 0 ].getDeadline() < 0 )
+        {
+            return null;
+        }
+        NioConnection connection = heap[ 0 ];
+        remove( connection );
+        return connection;
+    }
+    
+    /**
+     * Adds the connection or moves it to the position of its current deadline.
+     *
+     * @param connection the connection
+     */
+    void schedule( NioConnection connection )
+    {
+        int index = connection.getDeadlineIndex();
+        if ( index < 0 )
+        {
+            if ( size == heap.length )
+            {
+                heap = Arrays.copyOf( heap, size * 2 );
+            }
+            index = size++;
+            heap[ index ] = connection;
+            connection.setDeadlineIndex( index );
+        }
+        if ( !siftUp( index ) )
+        {
+            siftDown( index );
+        }
+    }
+    
+    /**
+     * Removes the connection, nothing happens if it isn't queued.
+     *
+     * @param connection the connection
+     */
+    void remove( NioConnection connection )
+    {
+        int index = connection.getDeadlineIndex();
+        if ( index < 0 )
+        {
+            return;
+        }
+        connection.setDeadlineIndex( -1 );
+        NioConnection last = heap[ --size ];
+        heap[ size ] = null;
+        if ( index == size )
+        {
+            return;
+        }
+        heap[ index ] = last;
+        last.setDeadlineIndex( index );
+        if ( !siftUp( index ) )
+        {
+            siftDown( index );
+        }
+    }
+    
+    private boolean siftUp( int index )
+    {
+        NioConnection connection = heap[ index ];
+        int start = index;
+        while ( index > 0 )
+        {
+            int parent = ( index - 1 ) >>> 1;
+            if ( connection.getDeadline() - heap[ parent ].getDeadline() >= 0 )
+            {
+                break;
+            }
+            move( heap[ parent ], index );
+            index = parent;
+        }
+        move( connection, index );
+        return index != start;
+    }
+    
+    private void siftDown( int index )
+    {
+        NioConnection connection = heap[ index ];
+        while ( true )
+        {
+            int child = 2 * index + 1;
+            if ( child >= size )
+            {
+                break;
+            }
+            if ( child + 1 < size
+                && heap[ child + 1 ].getDeadline() - heap[ child ].getDeadline() < 0 )
+            {
+                child++;
+            }
+            if ( heap[ child ].getDeadline() - connection.getDeadline() >= 0 )
+            {
+                break;
+            }
+            move( heap[ child ], index );
+            index = child;
+        }
+        move( connection, index );
+    }
+    
+    private void move( NioConnection connection, int index )
+    {
+        heap[ index ] = connection;
+        connection.setDeadlineIndex( index );
+    }
+}
@@ -0,0 +1,591 @@
+package com.github.argsfxs.deneb.transport;
+
+import com.github.argsfxs.deneb.exception.SocketConnectException;
+import com.github.argsfxs.deneb.exception.SocketHandshakeException;
+import com.github.argsfxs.deneb.exception.SocketIOException;
+import com.github.argsfxs.deneb.metrics.RequestTrace;
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents a single non-blocking Gemini connection.<br/>
+ * It performs the TLS handshake with an {@link SSLEngine}, sends the request and feeds the
+ * decrypted response into a {@link NioInputStream}. Once the response header has been received,
+ * the response is created on the executor so the selector thread never blocks.
+ */
+class NioConnection
+{
+    // <STATUS><SPACE><META><CR><LF> with META being at most 1024 bytes
+    private static final int MAX_HEADER_LENGTH = 1029;
+    
+    private static final Logger logger = LogManager.getLogger( NioConnection.class );
+    
+    private final SelectorLoop loop;
+    
+    private final SSLEngine engine;
+    
+    private final ByteBuffer request;
+    
+    private final Executor executor;
+    
+    private final NioInputStream stream;
+    
+    private final CompletableFuture<GeminiResponse> future = new CompletableFuture<>();
+    
+    private final long connectTimeout;
+    
+    private final long handshakeTimeout;
+    
+    private final long readTimeout;
+    
+    private final long requestDeadline;
+    
+    private final RequestTrace trace;
+    
+    private final RequestOptions options;
+    
+    private ByteBuffer netIn;
+    
+    private ByteBuffer netOut;
+    
+    private ByteBuffer appIn;
+    
+    private SocketChannel channel;
+    
+    private SelectionKey key;
+    
+    private boolean connected;
+    
+    private boolean handshakeDone;
+    
+    private boolean tasksRunning;
+    
+    private boolean endOfStream;
+    
+    private boolean closed;
+    
+    private boolean headerDispatched;
+    
+    private int headerLength;
+    
+    private int previous = -1;
+    
+    private long deadline;
+    
+    private boolean deadlineSet;
+    
+    private int deadlineIndex = -1;
+    
+    private boolean waitingForData;
+    
+    private long received;
+    
+    NioConnection( SelectorLoop loop, SSLEngine engine, ByteBuffer request,
+        Executor executor, int bufferSize, RequestOptions options, RequestTrace trace )
+    {
+        this.connectTimeout = TimeUnit.MILLISECONDS.toNanos( options.getConnectTimeout() );
+        this.handshakeTimeout = TimeUnit.MILLISECONDS.toNanos( options.getHandshakeTimeout() );
+        this.readTimeout = TimeUnit.MILLISECONDS.toNanos( options.getReadTimeout() );
+        // the deadline of the whole request includes the name resolution
+        this.requestDeadline = options.getRequestTimeout() > 0 ? System.nanoTime()
+            + TimeUnit.MILLISECONDS.toNanos( options.getRequestTimeout() ) : 0;
+        this.loop = loop;
+        this.engine = engine;
+        this.request = request;
+        this.executor = executor;
+        this.trace = trace;
+        this.options = options;
+        this.stream = new NioInputStream( Math.max( bufferSize, MAX_HEADER_LENGTH ),
+            () -> loop.execute( this::resume ), () -> loop.execute( this::close ) );
+        int packetSize = engine.getSession().getPacketBufferSize();
+        this.netIn = ByteBuffer.allocate( packetSize );
+        this.netOut = ByteBuffer.allocate( packetSize );
+        this.appIn = ByteBuffer.allocate( engine.getSession().getApplicationBufferSize() );
+    }
+    
+    CompletableFuture<GeminiResponse> getFuture()
+    {
+        return future;
+    }
+    
+    long getDeadline()
+    {
+        return deadline;
+    }
+    
+    int getDeadlineIndex()
+    {
+        return deadlineIndex;
+    }
+    
+    void setDeadlineIndex( int deadlineIndex )
+    {
+        this.deadlineIndex = deadlineIndex;
+    }
+    
+    void start( InetSocketAddress address )
+    {
+        try
+        {
+            setDeadline( connectTimeout );
+            channel = SocketChannel.open();
+            channel.configureBlocking( false );
+            key = channel.register( loop.getSelector(), 0, this );
+            if ( channel.connect( address ) )
+            {
+                onConnected();
+            }
+            else
+            {
+                key.interestOps( SelectionKey.OP_CONNECT );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            fail( e );
+        }
+    }
+    
+    void handle( SelectionKey key )
+    {
+        try
+        {
+            if ( key.isConnectable() )
+            {
+                if ( channel.finishConnect() )
+                {
+                    onConnected();
+                }
+                return;
+            }
+            if ( key.isWritable() )
+            {
+                flush();
+            }
+            if ( key.isReadable() )
+            {
+                int n = channel.read( netIn );
+                if ( n == -1 )
+                {
+                    endOfStream = true;
+                }
+                else if ( n > 0 && waitingForData )
+                {
+                    setDeadline( readTimeout );
+                }
+            }
+            process();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            fail( e );
+        }
+    }
+    
+    void fail( Exception e )
+    {
+        if ( closed )
+        {
+            return;
+        }
+        logger.error( "Exception on connection: {}", e.getMessage() );
+        RuntimeException exception;
+        if ( e instanceof RuntimeException )
+        {
+            exception = ( RuntimeException ) e;
+        }
+        else if ( !connected )
+        {
+            exception = new SocketConnectException( e );
+        }
+        else if ( !handshakeDone )
+        {
+            exception = new SocketHandshakeException( e );
+        }
+        else
+        {
+            exception = new SocketIOException( e );
+        }
+        stream.fail( e instanceof IOException ? ( IOException ) e : new IOException( e ) );
+        trace.failed( exception );
+        future.completeExceptionally( exception );
+        close();
+    }
+    
+    /**
+     * Fails the connection if its current deadline has passed, otherwise the deadline is
+     * scheduled again.
+     *
+     * @param now the current time as returned by {@link System#nanoTime()}
+     */
+    void checkDeadline( long now )
+    {
+        if ( !deadlineSet || closed )
+        {
+            return;
+        }
+        if ( now - deadline >= 0 )
+        {
+            fail( new SocketTimeoutException( !connected ? "Connect timed out" :
+                !handshakeDone ? "Handshake timed out" : "Read timed out" ) );
+        }
+        else
+        {
+            loop.scheduleDeadline( this );
+        }
+    }
+    
+    void abort()
+    {
+        fail( new IOException( "Transport closed" ) );
+    }
+    
+    private void onConnected() throws IOException
+    {
+        connected = true;
+        trace.connected();
+        setDeadline( handshakeTimeout );
+        engine.beginHandshake();
+        process();
+    }
+    
+    /**
+     * Sets the deadline of the current phase, bounded by the deadline of the whole request.
+     *
+     * @param timeout the timeout of the phase in nanoseconds, <code>0</code> means no limit
+     */
+    private void setDeadline( long timeout )
+    {
+        long now = System.nanoTime();
+        deadlineSet = timeout > 0 || requestDeadline != 0;
+        if ( timeout > 0 && requestDeadline != 0 )
+        {
+            deadline = now + timeout - requestDeadline < 0 ? now + timeout : requestDeadline;
+        }
+        else
+        {
+            deadline = timeout > 0 ? now + timeout : requestDeadline;
+        }
+        if ( deadlineSet )
+        {
+            loop.scheduleDeadline( this );
+        }
+        else
+        {
+            loop.cancelDeadline( this );
+        }
+    }
+    
+    private void resume()
+    {
+        try
+        {
+            process();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            fail( e );
+        }
+    }
+    
+    private void process() throws IOException
+    {
+        boolean progress = true;
+        while ( progress && !closed && flush() )
+        {
+            HandshakeStatus hs = engine.getHandshakeStatus();
+            if ( hs == HandshakeStatus.NEED_TASK )
+            {
+                runDelegatedTasks();
+                break;
+            }
+            if ( hs == HandshakeStatus.NEED_WRAP
+                || ( hs == HandshakeStatus.NOT_HANDSHAKING && request.hasRemaining() ) )
+            {
+                SSLEngineResult result = engine.wrap( request, netOut );
+                checkHandshake( result );
+                if ( result.getStatus() == SSLEngineResult.Status.CLOSED )
+                {
+                    throw new SSLException( "Engine closed while sending request" );
+                }
+                continue;
+            }
+            if ( !deliver() )
+            {
+                // the consumer has to catch up first
+                break;
+            }
+            progress = unwrap( hs );
+        }
+        if ( !closed && endOfStream && !progress && appIn.position() == 0 )
+        {
+            onEndOfStream();
+        }
+        updateInterest();
+    }
+    
+    private boolean unwrap( HandshakeStatus hs ) throws IOException
+    {
+        SSLEngineResult result;
+        netIn.flip();
+        try
+        {
+            result = engine.unwrap( netIn, appIn );
+        }
+        finally
+        {
+            netIn.compact();
+        }
+        checkHandshake( result );
+        switch ( result.getStatus() )
+        {
+            case OK:
+            {
+                deliver();
+                return result.bytesConsumed() > 0 || result.bytesProduced() > 0
+                    || engine.getHandshakeStatus() != hs;
+            }
+            case BUFFER_OVERFLOW:
+            {
+                if ( appIn.position() == 0 )
+                {
+                    appIn = enlarge( appIn,
+                        engine.getSession().getApplicationBufferSize() );
+                }
+                return deliver();
+            }
+            case BUFFER_UNDERFLOW:
+            {
+                if ( !netIn.hasRemaining() )
+                {
+                    netIn = enlarge( netIn, engine.getSession().getPacketBufferSize() );
+                }
+                return false;
+            }
+            default:
+            {
+                // close_notify received from the server
+                deliver();
+                onEndOfStream();
+                return false;
+            }
+        }
+    }
+    
+    private void onEndOfStream() throws IOException
+    {
+        if ( !handshakeDone )
+        {
+            throw new SSLException( "Connection closed during handshake" );
+        }
+        dispatchHeader();
+        stream.finish();
+        // the header is not counted as content
+        long bytes = received - headerLength;
+        // reported after the header, which might still be parsed by the executor
+        future.thenAccept( response -> {
+            if ( response instanceof GeminiSuccessResponse )
+            {
+                trace.bodyCompleted( bytes );
+            }
+        } );
+        close();
+    }
+    
+    private boolean deliver()
+    {
+        if ( appIn.position() == 0 )
+        {
+            return true;
+        }
+        appIn.flip();
+        int start = appIn.position();
+        int copied = stream.write( appIn );
+        if ( received == 0 && copied > 0 )
+        {
+            trace.firstByteReceived();
+        }
+        received += copied;
+        scanHeader( start, copied );
+        appIn.compact();
+        return appIn.position() == 0;
+    }
+    
+    private void scanHeader( int start, int length )
+    {
+        for ( int i = start; i < start + length && !headerDispatched; i++ )
+        {
+            int current = appIn.get( i );
+            headerLength++;
+            // a full buffer without CRLF is dispatched as well, the factory rejects it, so the
+            // header is never stuck in a buffer nobody reads from
+            if ( ( previous == '\r' && current == '\n' ) || headerLength >= MAX_HEADER_LENGTH )
+            {
+                dispatchHeader();
+            }
+            previous = current;
+        }
+    }
+    
+    private void dispatchHeader()
+    {
+        if ( headerDispatched )
+        {
+            return;
+        }
+        headerDispatched = true;
+        executor.execute( () -> {
+            try
+            {
+                GeminiResponse response = GeminiResponseFactory.create( stream, options );
+                if ( !( response instanceof GeminiSuccessResponse ) )
+                {
+                    // only success responses have content to read
+                    stream.close();
+                }
+                trace.headerReceived( response );
+                future.complete( response );
+            }
+            catch ( RuntimeException e )
+            {
+                trace.failed( e );
+                future.completeExceptionally( e );
+            }
+        } );
+    }
+    
+    private void runDelegatedTasks()
+    {
+        tasksRunning = true;
+        executor.execute( () -> {
+            try
+            {
+                Runnable task;
+                while ( ( task = engine.getDelegatedTask() ) != null )
+                {
+                    task.run();
+                }
+            }
+            finally
+            {
+                loop.execute( () -> {
+                    tasksRunning = false;
+                    resume();
+                } );
+            }
+        } );
+    }
+    
+    private void checkHandshake( SSLEngineResult result )
+    {
+        if ( result.getHandshakeStatus() == HandshakeStatus.FINISHED && !handshakeDone )
+        {
+            handshakeDone = true;
+            trace.handshakeCompleted();
+            // the read timeout starts as soon as data is awaited
+            setDeadline( 0 );
+        }
+    }
+    
+    private boolean flush() throws IOException
+    {
+        if ( netOut.position() == 0 )
+        {
+            return true;
+        }
+        netOut.flip();
+        try
+        {
+            channel.write( netOut );
+        }
+        finally
+        {
+            netOut.compact();
+        }
+        return netOut.position() == 0;
+    }
+    
+    private void updateInterest()
+    {
+        if ( closed || !key.isValid() )
+        {
+            return;
+        }
+        int ops = 0;
+        if ( netOut.position() > 0 )
+        {
+            ops |= SelectionKey.OP_WRITE;
+        }
+        if ( !tasksRunning && !endOfStream && appIn.position() == 0 && netIn.hasRemaining() )
+        {
+            ops |= SelectionKey.OP_READ;
+        }
+        key.interestOps( ops );
+        // a slow consumer must not let the read timeout expire, but nobody consumes before the
+        // header has been dispatched, so the server is still waited for until then
+        boolean reading = ( ops & SelectionKey.OP_READ ) != 0 || !headerDispatched;
+        if ( handshakeDone && reading != waitingForData )
+        {
+            waitingForData = reading;
+            setDeadline( reading ? readTimeout : 0 );
+        }
+    }
+    
+    private static ByteBuffer enlarge( ByteBuffer buffer, int size )
+    {
+        ByteBuffer enlarged =
+            ByteBuffer.allocate( Math.max( size, buffer.capacity() * 2 ) );
+        buffer.flip();
+        enlarged.put( buffer );
+        return enlarged;
+    }
+    
+    void close()
+    {
+        if ( closed )
+        {
+            return;
+        }
+        closed = true;
+        loop.cancelDeadline( this );
+        stream.finish();
+        if ( !future.isDone() && !headerDispatched )
+        {
+            future.completeExceptionally(
+                new SocketIOException( new IOException( "Connection closed" ) ) );
+        }
+        try
+        {
+            if ( key != null )
+            {
+                key.cancel();
+            }
+            if ( channel != null )
+            {
+                channel.close();
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't close channel: {}", e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.github.argsfxs.deneb.transport;
+
+import com.github.argsfxs.deneb.response.TransferableContent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class represents the decrypted data received by a {@link NioConnection}.<br/>
+ * The data is kept in a bounded ring buffer. When the buffer is full the connection stops reading
+ * from the network until the consumer has freed enough space.<br/>
+ * The data can also be written to a channel straight from the ring buffer.
+ */
+class NioInputStream extends InputStream implements TransferableContent
+{
+    private final byte[] buffer;
+    
+    // a view of the buffer used to write to channels, it is only used by the consumer
+    private final ByteBuffer view;
+    
+    private final Runnable onSpace;
+    
+    private final Runnable onClose;
+    
+    private int readPosition;
+    
+    private int count;
+    
+    private boolean finished;
+    
+    private boolean closed;
+    
+    private boolean waitingForSpace;
+    
+    private IOException failure;
+    
+    NioInputStream( int capacity, Runnable onSpace, Runnable onClose )
+    {
+        this.buffer = new byte[ capacity ];
+        this.view = ByteBuffer.wrap( buffer );
+        this.onSpace = onSpace;
+        this.onClose = onClose;
+    }
+    
+    /**
+     * Copies as many bytes as fit into the buffer.
+     *
+     * @param src the decrypted data
+     * @return the number of bytes copied
+     */
+    synchronized int write( ByteBuffer src )
+    {
+        int copied = 0;
+        while ( src.hasRemaining() && count < buffer.length && !closed )
+        {
+            int writePosition = ( readPosition + count ) % buffer.length;
+            int length = Math.min( src.remaining(),
+                Math.min( buffer.length - count, buffer.length - writePosition ) );
+            src.get( buffer, writePosition, length );
+            count += length;
+            copied += length;
+        }
+        if ( src.hasRemaining() && !closed )
+        {
+            waitingForSpace = true;
+        }
+        notifyAll();
+        return copied;
+    }
+    
+    synchronized void finish()
+    {
+        finished = true;
+        notifyAll();
+    }
+    
+    synchronized void fail( IOException e )
+    {
+        if ( !finished )
+        {
+            failure = e;
+        }
+        finished = true;
+        notifyAll();
+    }
+    
+    @Override
+    public int read() throws IOException
+    {
+        boolean notify;
+        int b;
+        synchronized ( this )
+        {
+            if ( !await() )
+            {
+                return -1;
+            }
+            b = buffer[ readPosition ] & 0xFF;
+            notify = consume( 1 );
+        }
+        if ( notify )
+        {
+            onSpace.run();
+        }
+        return b;
+    }
+    
+    @Override
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        if ( len == 0 )
+        {
+            return 0;
+        }
+        boolean notify;
+        int length;
+        synchronized ( this )
+        {
+            if ( !await() )
+            {
+                return -1;
+            }
+            length = Math.min( len,
+                Math.min( count, buffer.length - readPosition ) );
+            System.arraycopy( buffer, readPosition, b, off, length );
+            notify = consume( length );
+        }
+        if ( notify )
+        {
+            onSpace.run();
+        }
+        return length;
+    }
+    
+    @Override
+    public long transferTo( WritableByteChannel target ) throws IOException
+    {
+        long transferred = 0;
+        while ( true )
+        {
+            int position;
+            int length;
+            synchronized ( this )
+            {
+                if ( !await() )
+                {
+                    return transferred;
+                }
+                position = readPosition;
+                length = Math.min( count, buffer.length - readPosition );
+            }
+            // the producer doesn't touch data which hasn't been consumed yet, so the channel is
+            // written to without holding the lock
+            view.limit( position + length ).position( position );
+            while ( view.hasRemaining() )
+            {
+                target.write( view );
+            }
+            boolean notify;
+            synchronized ( this )
+            {
+                if ( closed )
+                {
+                    throw new IOException( "Stream closed" );
+                }
+                notify = consume( length );
+            }
+            if ( notify )
+            {
+                onSpace.run();
+            }
+            transferred += length;
+        }
+    }
+    
+    /**
+     * Waits until data is available, the lock has to be held.
+     *
+     * @return <code>false</code> if the end of the stream has been reached
+     * @throws IOException if the stream has been closed or the connection failed
+     */
+    private boolean await() throws IOException
+    {
+        while ( count == 0 && !finished && !closed )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+        if ( closed )
+        {
+            throw new IOException( "Stream closed" );
+        }
+        if ( count == 0 )
+        {
+            if ( failure != null )
+            {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Frees the space of consumed data, the lock has to be held.
+     *
+     * @param length the number of bytes consumed
+     * @return <code>true</code> if the producer has to be notified about the free space
+     */
+    private boolean consume( int length )
+    {
+        readPosition = ( readPosition + length ) % buffer.length;
+        count -= length;
+        boolean notify = waitingForSpace && count <= buffer.length / 2;
+        if ( notify )
+        {
+            waitingForSpace = false;
+        }
+        return notify;
+    }
+    
+    @Override
+    public synchronized int available()
+    {
+        return count;
+    }
+    
+    @Override
+    public void close()
+    {
+        synchronized ( this )
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+            count = 0;
+            notifyAll();
+        }
+        onClose.run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.argsfxs.deneb.transport;
+
+import com.github.argsfxs.deneb.exception.SocketConnectException;
+import com.github.argsfxs.deneb.exception.SocketIOException;
+import com.github.argsfxs.deneb.metrics.RequestTrace;
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.net.ssl.SSLEngine;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>This class represents a non-blocking transport for Gemini requests.</p>
+ * <p>Connections are driven by a small, fixed number of selector threads using a
+ * {@link java.nio.channels.SocketChannel} and an {@link SSLEngine} each. The decrypted response
+ * is buffered per connection up to a fixed size, reading from the network is paused while the
+ * buffer is full. Thus the number of threads and the memory per connection stay bounded
+ * regardless of the number of connections.</p>
+ */
+public class NioTransport implements AutoCloseable
+{
+    private static final Logger logger = LogManager.getLogger( NioTransport.class );
+    
+    private final SelectorLoop[] loops;
+    
+    private final AtomicInteger next = new AtomicInteger();
+    
+    private final Executor executor;
+    
+    private final int bufferSize;
+    
+    private volatile boolean closed;
+    
+    /**
+     * Creates a new transport and starts its selector threads.
+     *
+     * @param selectorThreads the number of selector threads
+     * @param bufferSize      the maximum number of decrypted bytes buffered per connection
+     * @param executor        the executor for TLS tasks and response creation
+     */
+    public NioTransport( int selectorThreads, int bufferSize, Executor executor )
+    {
+        this.loops = new SelectorLoop[ Math.max( 1, selectorThreads ) ];
+        this.bufferSize = bufferSize;
+        this.executor = executor;
+        try
+        {
+            for ( int i = 0; i < loops.length; i++ )
+            {
+                loops[ i ] = new SelectorLoop( "deneb-selector-" + i );
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Couldn't open selector: {}", e.getMessage() );
+            close();
+            throw new SocketIOException( e );
+        }
+    }
+    
+    /**
+     * Sends a request to the server.<br/>
+     * The future is completed as soon as the response header has been received, the content of
+     * a success response is streamed while it is being read.
+     *
+     * @param engine  the client engine used for the connection
+     * @param host    the server host
+     * @param port    the server port
+     * @param url     the request URL
+     * @param options the options providing the timeouts of the request
+     * @param trace   the trace the phases of the request are reported to
+     * @return the future server response
+     */
+    public CompletableFuture<GeminiResponse> send( SSLEngine engine, String host, int port,
+        String url, RequestOptions options, RequestTrace trace )
+    {
+        if ( closed )
+        {
+            SocketConnectException e =
+                new SocketConnectException( new IOException( "Transport closed" ) );
+            trace.failed( e );
+            return CompletableFuture.failedFuture( e );
+        }
+        SelectorLoop loop =
+            loops[ Math.floorMod( next.getAndIncrement(), loops.length ) ];
+        ByteBuffer request =
+            ByteBuffer.wrap( ( url + "\r\n" ).getBytes( StandardCharsets.UTF_8 ) );
+        NioConnection connection =
+            new NioConnection( loop, engine, request, executor, bufferSize, options, trace );
+        // name resolution blocks, so it must not run on the selector thread
+        executor.execute( () -> {
+            InetSocketAddress address = new InetSocketAddress( host, port );
+            boolean queued;
+            if ( address.isUnresolved() )
+            {
+                queued = loop.execute(
+                    () -> connection.fail( new UnknownHostException( host ) ) );
+            }
+            else
+            {
+                trace.dnsResolved();
+                queued = loop.execute( () -> connection.start( address ) );
+            }
+            if ( !queued )
+            {
+                // the transport has been closed meanwhile, the loop won't touch the connection
+                connection.fail( new IOException( "Transport closed" ) );
+            }
+        } );
+        return connection.getFuture();
+    }
+    
+    /**
+     * Stops the selector threads, open connections are closed.
+     */
+    @Override
+    public void close()
+    {
+        closed = true;
+        for ( SelectorLoop loop : loops )
+        {
+            if ( loop != null )
+            {
+                loop.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.argsfxs.deneb.transport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class represents a selector thread driving the I/O of its {@link NioConnection} objects.
+ * <br/>
+ * Connections are only ever touched by their loop thread, other threads hand over work with
+ * {@link #execute(Runnable)}.
+ */
+class SelectorLoop implements Runnable
+{
+    private static final Logger logger = LogManager.getLogger( SelectorLoop.class );
+    
+    private final Selector selector;
+    
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    
+    private final Thread thread;
+    
+    private final DeadlineQueue deadlines = new DeadlineQueue();
+    
+    private volatile boolean running = true;
+    
+    private volatile boolean terminated;
+    
+    SelectorLoop( String name ) throws IOException
+    {
+        this.selector = Selector.open();
+        this.thread = new Thread( this, name );
+        this.thread.setDaemon( true );
+        this.thread.start();
+    }
+    
+    Selector getSelector()
+    {
+        return selector;
+    }
+    
+    /**
+     * Makes sure the connection is checked once its current deadline has passed.
+     * <br/>
+     * Must only be called on the loop thread.
+     *
+     * @param connection the connection
+     */
+    void scheduleDeadline( NioConnection connection )
+    {
+        deadlines.schedule( connection );
+    }
+    
+    /**
+     * Removes the deadline of the connection.
+     * <br/>
+     * Must only be called on the loop thread.
+     *
+     * @param connection the connection
+     */
+    void cancelDeadline( NioConnection connection )
+    {
+        deadlines.remove( connection );
+    }
+    
+    /**
+     * Runs the task on the loop thread.
+     *
+     * @param task the task
+     * @return <code>false</code> if the loop has stopped, the task is not run then
+     */
+    boolean execute( Runnable task )
+    {
+        tasks.add( task );
+        if ( terminated )
+        {
+            // the loop might have drained the queue already, if so the task is not run
+            return !tasks.remove( task );
+        }
+        selector.wakeup();
+        return true;
+    }
+    
+    @Override
+    public void run()
+    {
+        try
+        {
+            while ( running )
+            {
+                select();
+                runTasks();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while ( keys.hasNext() )
+                {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if ( key.isValid() )
+                    {
+                        ( ( NioConnection ) key.attachment() ).handle( key );
+                    }
+                }
+                checkDeadlines();
+            }
+        }
+        catch ( IOException e )
+        {
+            logger.error( "Exception in selector loop: {}", e.getMessage() );
+        }
+        finally
+        {
+            running = false;
+            // tasks queued from now on are rejected unless this drain picks them up
+            terminated = true;
+            runTasks();
+            for ( SelectionKey key : selector.keys() )
+            {
+                ( ( NioConnection ) key.attachment() ).abort();
+            }
+            try
+            {
+                selector.close();
+            }
+            catch ( IOException e )
+            {
+                logger.error( "Couldn't close selector: {}", e.getMessage() );
+            }
+        }
+    }
+    
+    private void select() throws IOException
+    {
+        if ( deadlines.isEmpty() )
+        {
+            selector.select();
+            return;
+        }
+        long timeout =
+            TimeUnit.NANOSECONDS.toMillis( deadlines.peekDeadline() - System.nanoTime() );
+        if ( timeout > 0 )
+        {
+            selector.select( timeout );
+        }
+        else
+        {
+            selector.selectNow();
+        }
+    }
+    
+    private void checkDeadlines()
+    {
+        long now = System.nanoTime();
+        NioConnection connection;
+        while ( ( connection = deadlines.pollExpired( now ) ) != null )
+        {
+            connection.checkDeadline( now );
+        }
+    }
+    
+    private void runTasks()
+    {
+        Runnable task;
+        while ( ( task = tasks.poll() ) != null )
+        {
+            try
+            {
+                task.run();
+            }
+            catch ( RuntimeException e )
+            {
+                logger.error( "Exception in selector task: {}", e.getMessage() );
+            }
+        }
+    }
+    
+    void close()
+    {
+        running = false;
+        selector.wakeup();
+    }
+}
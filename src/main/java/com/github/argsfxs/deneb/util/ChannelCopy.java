@@ -0,0 +1,46 @@
+package com.github.argsfxs.deneb.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * This class is used to copy streams which can't write to a channel themselves.<br/>
+ * The data is copied in large chunks through a single buffer, so copying a large response takes
+ * few reads and no allocations per chunk.
+ */
+public final class ChannelCopy
+{
+    private static final int CHUNK_SIZE = 65536;
+    
+    private ChannelCopy()
+    {
+    }
+    
+    /**
+     * Copies the remaining bytes of a stream to a channel.
+     *
+     * @param in     the stream
+     * @param target the blocking channel to write to
+     * @return the number of bytes written
+     * @throws IOException if the stream couldn't be read or written to the channel
+     */
+    public static long copy( InputStream in, WritableByteChannel target ) throws IOException
+    {
+        byte[] chunk = new byte[ CHUNK_SIZE ];
+        ByteBuffer buffer = ByteBuffer.wrap( chunk );
+        long transferred = 0;
+        int n;
+        while ( ( n = in.read( chunk ) ) != -1 )
+        {
+            buffer.limit( n ).position( 0 );
+            while ( buffer.hasRemaining() )
+            {
+                target.write( buffer );
+            }
+            transferred += n;
+        }
+        return transferred;
+    }
+}
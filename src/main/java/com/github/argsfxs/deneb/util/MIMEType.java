@@ -1,16 +1,29 @@
 package com.github.argsfxs.deneb.util;
 
-import org.apache.commons.lang3.StringUtils;
-
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class represent the MIME type returned by the server in the status header of a success
- * response.
+ * response.<br/>
+ * Instances are immutable. Parsed types are cached, so the same header meta yields the same
+ * instance.
  */
 public class MIMEType
 {
+    private static final int MAX_CACHE_SIZE = 256;
+    
+    private static final Map<String, MIMEType> common = commonTypes( "text/gemini",
+        "text/gemini; charset=utf-8", "text/gemini;charset=utf-8",
+        "text/gemini; charset=UTF-8", "text/gemini; lang=en", "text/plain",
+        "text/plain; charset=utf-8", "image/png", "image/jpeg", "image/gif", "image/webp",
+        "application/octet-stream" );
+    
+    private static final Map<String, MIMEType> cache = new ConcurrentHashMap<>();
+    
     private final String mediaType;
     
     private final String subType;
@@ -36,58 +49,139 @@ public class MIMEType
      */
     public static MIMEType from( String typeString )
     {
-        if ( StringUtils.isEmpty( typeString ) )
+        if ( typeString == null || typeString.isEmpty() )
         {
             return null;
         }
-        String[] typeSegments = StringUtils.split( typeString, "/" );
-        if ( typeSegments.length != 2 )
+        MIMEType mimeType = common.get( typeString );
+        if ( mimeType != null )
         {
-            return null;
+            return mimeType;
         }
-        List<String> parameterSegments =
-            Arrays.stream( StringUtils.split( typeSegments[ 1 ], ';' ) ).collect(
-                Collectors.toList() );
-        Map<String, String> parameterMap = new HashMap<>();
-        if ( parameterSegments.size() > 1 )
+        mimeType = cache.get( typeString );
+        if ( mimeType != null )
         {
-            for ( String parameter :
-                parameterSegments.stream().filter( s -> s.contains( "=" ) )
-                                 .collect(
-                                     Collectors.toList() ) )
+            return mimeType;
+        }
+        mimeType = parse( typeString );
+        if ( mimeType != null )
+        {
+            // the cache is bounded, rarely used types are dropped together with the others
+            if ( cache.size() >= MAX_CACHE_SIZE )
             {
-                String[] keyValue = StringUtils.split( parameter, "=" );
-                if ( keyValue.length == 2 )
-                {
-                    parameterMap.put( keyValue[ 0 ].trim(),
-                        cleanValue( keyValue[ 1 ] ) );
-                }
+                cache.clear();
             }
-            
+            cache.putIfAbsent( typeString, mimeType );
+        }
+        return mimeType;
+    }
+    
+    private static Map<String, MIMEType> commonTypes( String... typeStrings )
+    {
+        Map<String, MIMEType> types = new HashMap<>();
+        for ( String typeString : typeStrings )
+        {
+            types.put( typeString, parse( typeString ) );
+        }
+        return Collections.unmodifiableMap( types );
+    }
+    
+    private static MIMEType parse( String typeString )
+    {
+        int end = typeString.indexOf( ';' );
+        if ( end == -1 )
+        {
+            end = typeString.length();
+        }
+        int slash = typeString.indexOf( '/' );
+        if ( slash == -1 || slash > end )
+        {
+            return null;
+        }
+        String mediaType = typeString.substring( 0, slash ).trim();
+        String subType = typeString.substring( slash + 1, end ).trim();
+        if ( mediaType.isEmpty() || subType.isEmpty() || subType.indexOf( '/' ) != -1 )
+        {
+            return null;
         }
-        return new MIMEType( typeSegments[ 0 ],
-            StringUtils.substringBefore( typeSegments[ 1 ], ";" ), typeString,
-            parameterMap );
+        return new MIMEType( mediaType, subType, typeString,
+            parseParameters( typeString, end ) );
     }
     
-    private static String cleanValue( String value )
+    private static Map<String, String> parseParameters( String typeString, int start )
     {
-        if ( value.length() < 2 )
+        String firstKey = null;
+        String firstValue = null;
+        Map<String, String> parameters = null;
+        int length = typeString.length();
+        int position = start;
+        while ( position < length )
         {
-            return value;
+            // position points to the ';' in front of the parameter
+            int separator = typeString.indexOf( ';', position + 1 );
+            int next = separator == -1 ? length : separator;
+            int equals = typeString.indexOf( '=', position + 1 );
+            if ( equals == -1 || equals > next )
+            {
+                position = next;
+                continue;
+            }
+            String key = typeString.substring( position + 1, equals ).trim();
+            int valueStart = skipWhitespace( typeString, equals + 1, length );
+            String value;
+            if ( valueStart < length && typeString.charAt( valueStart ) == '"'
+                && typeString.indexOf( '"', valueStart + 1 ) != -1 )
+            {
+                int quote = typeString.indexOf( '"', valueStart + 1 );
+                value = typeString.substring( valueStart + 1, quote );
+                separator = typeString.indexOf( ';', quote );
+                next = separator == -1 ? length : separator;
+            }
+            else
+            {
+                // unquoted values end at the first whitespace, e.g. before a comment
+                int valueEnd = valueStart;
+                while ( valueEnd < next && !Character.isWhitespace( typeString.charAt( valueEnd ) ) )
+                {
+                    valueEnd++;
+                }
+                value = typeString.substring( valueStart, valueEnd );
+            }
+            if ( !key.isEmpty() && !value.isEmpty() )
+            {
+                if ( firstKey == null )
+                {
+                    firstKey = key;
+                    firstValue = value;
+                }
+                else
+                {
+                    if ( parameters == null )
+                    {
+                        parameters = new HashMap<>();
+                        parameters.put( firstKey, firstValue );
+                    }
+                    parameters.put( key, value );
+                }
+            }
+            position = next;
         }
-        if ( value.charAt( 0 ) == '"' && value.charAt( value.length() - 1 ) == '"' )
+        if ( parameters != null )
         {
-            String cleaned = StringUtils.removeStart( value, "\"" );
-            cleaned = StringUtils.removeEnd( cleaned, "\"" );
-            return cleaned;
+            return Collections.unmodifiableMap( parameters );
         }
-        if ( value.contains( " " ) )
+        return firstKey != null ? Collections.singletonMap( firstKey, firstValue ) :
+            Collections.emptyMap();
+    }
+    
+    private static int skipWhitespace( String s, int from, int to )
+    {
+        int i = from;
+        while ( i < to && Character.isWhitespace( s.charAt( i ) ) )
         {
-            String[] segments = value.split( " " );
-            return segments[ 0 ];
+            i++;
         }
-        return value;
+        return i;
     }
     
     /**
@@ -111,7 +205,7 @@ public class MIMEType
     }
     
     /**
-     * Returns a map of optional parameters of the MIME type.
+     * Returns an unmodifiable map of optional parameters of the MIME type.
      *
      * @return the parameter map
      */
@@ -0,0 +1,212 @@
+package com.github.argsfxs.deneb.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>This class is used to publish items pulled from a blocking source to a single
+ * subscriber.</p>
+ * <p>Items are only pulled when the subscriber has requested them, so a slow subscriber holds
+ * back the source instead of items being buffered. Pulling items and signalling the subscriber is
+ * done on an executor, by one thread at a time. Cancelling the subscription releases the source
+ * right away, so a pull blocked on the executor is interrupted.</p>
+ *
+ * @param <T> the type of the items
+ */
+public abstract class PullPublisher<T> implements Flow.Publisher<T>
+{
+    private static final Logger logger = LogManager.getLogger( PullPublisher.class );
+    
+    private final Executor executor;
+    
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    
+    private final AtomicLong demand = new AtomicLong();
+    
+    // the number of signals not yet handled by the thread draining the source
+    private final AtomicInteger pending = new AtomicInteger();
+    
+    private volatile boolean cancelled;
+    
+    private volatile IllegalArgumentException invalidRequest;
+    
+    private Flow.Subscriber<? super T> subscriber;
+    
+    private boolean done;
+    
+    /**
+     * Creates a new publisher.
+     *
+     * @param executor the executor pulling the items and signalling the subscriber
+     */
+    protected PullPublisher( Executor executor )
+    {
+        this.executor = executor;
+    }
+    
+    @Override
+    public void subscribe( Flow.Subscriber<? super T> subscriber )
+    {
+        Objects.requireNonNull( subscriber );
+        if ( !subscribed.compareAndSet( false, true ) )
+        {
+            subscriber.onSubscribe( new Flow.Subscription()
+            {
+                @Override
+                public void request( long n )
+                {
+                }
+                
+                @Override
+                public void cancel()
+                {
+                }
+            } );
+            subscriber.onError( new IllegalStateException( "Already subscribed to" ) );
+            return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe( new Flow.Subscription()
+        {
+            @Override
+            public void request( long n )
+            {
+                if ( n <= 0 )
+                {
+                    invalidRequest =
+                        new IllegalArgumentException( "Non-positive request: " + n );
+                }
+                else
+                {
+                    demand.accumulateAndGet( n,
+                        ( d, m ) -> d + m < 0 ? Long.MAX_VALUE : d + m );
+                }
+                signal();
+            }
+            
+            @Override
+            public void cancel()
+            {
+                cancelled = true;
+                // the executor might be blocked pulling an item, closing the source ends the wait
+                release();
+                signal();
+            }
+        } );
+    }
+    
+    /**
+     * Pulls the next item, blocking until it is available.<br/>
+     * This is only called while {@link #isReady()} returns <code>true</code>.
+     *
+     * @return the item or <code>null</code> at the end of the source
+     * @throws IOException if the source couldn't be read, it is passed to the subscriber
+     */
+    protected abstract T pull() throws IOException;
+    
+    /**
+     * Releases the source after the subscription has been cancelled or pulling failed.<br/>
+     * This may be called more than once. When the subscription is cancelled it is called by the
+     * cancelling thread, possibly while {@link #pull()} is blocked on the executor, and again by
+     * the executor once pulling has stopped.
+     */
+    protected abstract void release();
+    
+    /**
+     * Returns whether the next item can be pulled.<br/>
+     * Sources waiting for an asynchronous event return <code>false</code> and call
+     * {@link #signal()} once the event has occurred.
+     *
+     * @return <code>true</code> if the next item can be pulled
+     */
+    protected boolean isReady()
+    {
+        return true;
+    }
+    
+    /**
+     * Schedules pulling items as far as requested by the subscriber.
+     */
+    protected final void signal()
+    {
+        if ( pending.getAndIncrement() == 0 )
+        {
+            executor.execute( this::drain );
+        }
+    }
+    
+    private void drain()
+    {
+        int missed = 1;
+        do
+        {
+            try
+            {
+                publish();
+            }
+            catch ( RuntimeException e )
+            {
+                logger.error( "Subscriber failed: {}", e.getMessage() );
+                done = true;
+                release();
+            }
+            missed = pending.addAndGet( -missed );
+        }
+        while ( missed != 0 );
+    }
+    
+    private void publish()
+    {
+        while ( !done )
+        {
+            if ( cancelled )
+            {
+                done = true;
+                release();
+                return;
+            }
+            if ( invalidRequest != null )
+            {
+                done = true;
+                release();
+                subscriber.onError( invalidRequest );
+                return;
+            }
+            if ( demand.get() == 0 || !isReady() )
+            {
+                return;
+            }
+            T item;
+            try
+            {
+                item = pull();
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                done = true;
+                release();
+                if ( !cancelled )
+                {
+                    subscriber.onError( e );
+                }
+                return;
+            }
+            if ( item == null )
+            {
+                done = true;
+                subscriber.onComplete();
+                return;
+            }
+            demand.decrementAndGet();
+            subscriber.onNext( item );
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package com.github.argsfxs.deneb.util;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -31,6 +30,25 @@ public enum Status
     
     private static final Logger logger = LogManager.getLogger( Status.class );
     
+    private static final Status[] lookup = new Status[ 100 ];
+    
+    static
+    {
+        for ( Status status : values() )
+        {
+            lookup[ status.code ] = status;
+        }
+        // unknown codes fall back to the first code of their category
+        for ( int code = 0; code < lookup.length; code++ )
+        {
+            if ( lookup[ code ] == null )
+            {
+                Status category = lookup[ ( code / 10 ) * 10 ];
+                lookup[ code ] = category != null ? category : INVALID;
+            }
+        }
+    }
+    
     private final int code;
     
     Status( int code )
@@ -46,46 +64,36 @@ public enum Status
      */
     public static Status fromHeader( String header )
     {
-        if ( StringUtils.length( header ) < 2 )
+        if ( header == null || header.length() < 2 )
         {
             logStatusError( header );
             return INVALID;
         }
-        int code;
-        try
-        {
-            code = Integer.parseInt( StringUtils.substring( header, 0, 2 ) );
-        }
-        catch ( NumberFormatException nfe )
+        int tens = header.charAt( 0 ) - '0';
+        int ones = header.charAt( 1 ) - '0';
+        if ( tens < 1 || tens > 6 || ones < 0 || ones > 9 )
         {
             logStatusError( header );
             return INVALID;
         }
-        if ( code < 10 || code > 69 )
-        {
-            logStatusError( header );
-            return INVALID;
-        }
-        return fromCode( code );
+        return lookup[ tens * 10 + ones ];
     }
     
     /**
-     * Returns the status from its numerical value.
+     * Returns the status from its numerical value.<br/>
+     * Unknown codes are mapped to the first status of their category, e.g. <code>48</code> to
+     * {@link #TEMPORARY_FAILURE}.
      *
      * @param code the numerical value
      * @return the corresponding Status object
      */
     public static Status fromCode( int code )
     {
-        
-        for ( Status s : Status.values() )
+        if ( code < 0 || code >= lookup.length )
         {
-            if ( s.code == code )
-            {
-                return s;
-            }
+            return INVALID;
         }
-        return fromCode( ( code / 10 ) * 10 );
+        return lookup[ code ];
     }
     
     private static void logStatusError( String header )
@@ -0,0 +1,62 @@
+package com.github.argsfxs.deneb.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+
+/**
+ * This class is used to normalize Gemini URLs, so equivalent URLs can be compared.<br/>
+ * The scheme and host are lower-cased, the default port is removed and an empty path is
+ * replaced by <code>/</code>. The fragment is dropped since it is never sent to the server.
+ */
+public final class UrlNormalizer
+{
+    private static final int DEFAULT_PORT = 1965;
+    
+    private UrlNormalizer()
+    {
+    }
+    
+    /**
+     * Normalizes a URL.
+     *
+     * @param url  the URL to normalize
+     * @param port the port the URL is requested from if it doesn't contain a port
+     * @return the normalized URL or the given URL if it can't be parsed
+     */
+    public static String normalize( String url, int port )
+    {
+        URI uri;
+        try
+        {
+            uri = new URI( url );
+        }
+        catch ( URISyntaxException e )
+        {
+            return url;
+        }
+        if ( uri.getScheme() == null || uri.getHost() == null )
+        {
+            return url;
+        }
+        if ( uri.getPort() != -1 )
+        {
+            port = uri.getPort();
+        }
+        StringBuilder normalized = new StringBuilder( url.length() + 1 )
+            .append( uri.getScheme().toLowerCase( Locale.ROOT ) )
+            .append( "://" )
+            .append( uri.getHost().toLowerCase( Locale.ROOT ) );
+        if ( port != DEFAULT_PORT )
+        {
+            normalized.append( ':' ).append( port );
+        }
+        String path = uri.getRawPath();
+        normalized.append( path == null || path.isEmpty() ? "/" : path );
+        if ( uri.getRawQuery() != null )
+        {
+            normalized.append( '?' ).append( uri.getRawQuery() );
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package com.github.argsfxs.deneb.cache;
+
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.request.GeminiRequestBuilder;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.util.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiskResponseCacheTest
+{
+    @TempDir
+    Path directory;
+    
+    @Test
+    public void testStoredAcrossRestarts() throws IOException
+    {
+        GeminiRequest request = request( "foo" );
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            assertEquals( "# Foo", read( cache.put( request,
+                response( "20 text/gemini", "# Foo" ) ) ) );
+            cache.put( request( "gone" ), response( "52 gone", "" ) );
+            
+            assertEquals( "# Foo", read( cache.get( request ) ) );
+        }
+        
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            GeminiResponse cached = cache.get( new GeminiRequestBuilder( "LOCALHOST" )
+                .withPath( "foo" ).build() );
+            assertNotNull( cached );
+            assertEquals( "# Foo", read( cached ) );
+            assertEquals( Status.GONE, cache.get( request( "gone" ) ).getStatus() );
+        }
+    }
+    
+    @Test
+    public void testTransferTo() throws IOException
+    {
+        GeminiRequest request = request( "foo" );
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            read( cache.put( request, response( "20 text/gemini", "# Foo" ) ) );
+            GeminiSuccessResponse cached = ( GeminiSuccessResponse ) cache.get( request );
+            Path file = directory.resolve( "foo.gmi" );
+            
+            assertEquals( 5, cached.saveTo( file ) );
+            assertEquals( "# Foo", Files.readString( file ) );
+        }
+    }
+    
+    @Test
+    public void testLatestRecordWins() throws IOException
+    {
+        GeminiRequest request = request( "foo" );
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            read( cache.put( request, response( "20 text/gemini", "old" ) ) );
+            read( cache.put( request, response( "20 text/gemini", "new" ) ) );
+            assertEquals( "new", read( cache.get( request ) ) );
+        }
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            assertEquals( "new", read( cache.get( request ) ) );
+        }
+    }
+    
+    @Test
+    public void testIncompleteRecordTruncated() throws IOException
+    {
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            read( cache.put( request( "foo" ), response( "20 text/gemini", "# Foo" ) ) );
+        }
+        Path segment = directory.resolve( "segment-00000000.dat" );
+        long length = Files.size( segment );
+        Files.write( segment, new byte[]{ 0x44, 0x4E, 0x42 }, StandardOpenOption.APPEND );
+        
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            assertEquals( "# Foo", read( cache.get( request( "foo" ) ) ) );
+            assertEquals( length, cache.size() );
+            read( cache.put( request( "bar" ), response( "20 text/gemini", "# Bar" ) ) );
+            assertEquals( "# Bar", read( cache.get( request( "bar" ) ) ) );
+        }
+    }
+    
+    @Test
+    public void testOldestSegmentEvicted() throws IOException
+    {
+        String content = new String( new char[ 100 ] ).replace( '\0', 'x' );
+        try ( DiskResponseCache cache = new DiskResponseCache( directory, 1000, 200, 300, 60 ) )
+        {
+            for ( int i = 0; i < 20; i++ )
+            {
+                read( cache.put( request( "p" + i ), response( "20 text/plain", content ) ) );
+            }
+            
+            assertNull( cache.get( request( "p0" ) ) );
+            assertEquals( content, read( cache.get( request( "p19" ) ) ) );
+            assertTrue( cache.size() <= 1000 );
+        }
+    }
+    
+    @Test
+    public void testSupersededSegmentCompacted() throws IOException
+    {
+        String content = new String( new char[ 50 ] ).replace( '\0', 'x' );
+        try ( DiskResponseCache cache = new DiskResponseCache( directory, 1 << 20, 250, 300,
+            60 ) )
+        {
+            // two records fit into a segment
+            for ( String path : new String[]{ "a", "b", "c", "a" } )
+            {
+                read( cache.put( request( path ), response( "20 text/plain", content ) ) );
+            }
+            
+            assertFalse( Files.exists( directory.resolve( "segment-00000000.dat" ) ) );
+            assertEquals( content, read( cache.get( request( "a" ) ) ) );
+            assertEquals( content, read( cache.get( request( "b" ) ) ) );
+            assertEquals( content, read( cache.get( request( "c" ) ) ) );
+        }
+        
+        long files = 0;
+        try ( DirectoryStream<Path> segments = Files.newDirectoryStream( directory ) )
+        {
+            for ( Path segment : segments )
+            {
+                files += Files.size( segment );
+            }
+        }
+        try ( DiskResponseCache cache = new DiskResponseCache( directory ) )
+        {
+            assertEquals( files, cache.size() );
+            assertEquals( content, read( cache.get( request( "b" ) ) ) );
+        }
+    }
+    
+    private static GeminiRequest request( String path )
+    {
+        return new GeminiRequestBuilder( "localhost" ).withPath( path ).build();
+    }
+    
+    private static GeminiResponse response( String header, String content )
+    {
+        return GeminiResponseFactory.create( header,
+            new ByteArrayInputStream( content.getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+    
+    private static String read( GeminiResponse response ) throws IOException
+    {
+        assertInstanceOf( GeminiSuccessResponse.class, response );
+        return new String( ( ( GeminiSuccessResponse ) response ).getContent().readAllBytes(),
+            StandardCharsets.UTF_8 );
+    }
+}
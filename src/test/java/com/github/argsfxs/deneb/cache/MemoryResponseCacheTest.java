@@ -0,0 +1,148 @@
+package com.github.argsfxs.deneb.cache;
+
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.request.GeminiRequestBuilder;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.response.TransferableContent;
+import com.github.argsfxs.deneb.util.Status;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MemoryResponseCacheTest
+{
+    @Test
+    public void testSuccessStoredAfterRead() throws IOException
+    {
+        MemoryResponseCache cache = new MemoryResponseCache();
+        GeminiRequest request = request( "foo" );
+        
+        GeminiResponse response = cache.put( request, response( "20 text/gemini", "# Foo" ) );
+        assertNull( cache.get( request ) );
+        assertEquals( "# Foo", read( response ) );
+        
+        GeminiResponse cached = cache.get( new GeminiRequestBuilder( "LOCALHOST" )
+            .withPath( "foo" ).build() );
+        assertNotNull( cached );
+        assertEquals( Status.SUCCESS, cached.getStatus() );
+        assertEquals( "gemini", ( ( GeminiSuccessResponse ) cached ).getMimeType().getSubType() );
+        assertEquals( "# Foo", read( cached ) );
+        assertEquals( "# Foo", read( cache.get( request ) ) );
+    }
+    
+    @Test
+    public void testSuccessStoredAfterTransfer() throws IOException
+    {
+        MemoryResponseCache cache = new MemoryResponseCache();
+        GeminiRequest request = request( "foo" );
+        GeminiResponse response = GeminiResponseFactory.create( "20 text/gemini",
+            new ByteBufferInputStream(
+                ByteBuffer.wrap( "# Foo".getBytes( StandardCharsets.UTF_8 ) ) ) );
+        
+        GeminiSuccessResponse success =
+            ( GeminiSuccessResponse ) cache.put( request, response );
+        assertInstanceOf( TransferableContent.class, success.getContent() );
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals( 5, success.transferTo( Channels.newChannel( out ) ) );
+        
+        assertEquals( "# Foo", out.toString( StandardCharsets.UTF_8 ) );
+        assertEquals( "# Foo", read( cache.get( request ) ) );
+    }
+    
+    @Test
+    public void testSizeInBytes() throws IOException
+    {
+        MemoryResponseCache cache = new MemoryResponseCache();
+        String header = "20 text/plain; title=\u00e4\u00f6\u00fc";
+        
+        read( cache.put( request( "foo" ), response( header, "foo" ) ) );
+        
+        assertEquals( header.getBytes( StandardCharsets.UTF_8 ).length + 3, cache.size() );
+    }
+    
+    @Test
+    public void testFailureStored()
+    {
+        MemoryResponseCache cache = new MemoryResponseCache();
+        GeminiRequest request = request( "gone" );
+        
+        cache.put( request, response( "52 gone", "" ) );
+        cache.put( request( "temporary" ), response( "40 try again", "" ) );
+        
+        assertEquals( Status.GONE, cache.get( request ).getStatus() );
+        assertNull( cache.get( request( "temporary" ) ) );
+    }
+    
+    @Test
+    public void testDisabledTtl() throws IOException
+    {
+        MemoryResponseCache cache = new MemoryResponseCache( 1024, 0, 0 );
+        GeminiRequest request = request( "foo" );
+        
+        read( cache.put( request, response( "20 text/gemini", "# Foo" ) ) );
+        cache.put( request( "gone" ), response( "52 gone", "" ) );
+        
+        assertNull( cache.get( request ) );
+        assertNull( cache.get( request( "gone" ) ) );
+    }
+    
+    @Test
+    public void testEviction() throws IOException
+    {
+        MemoryResponseCache cache = new MemoryResponseCache( 100, 300, 60 );
+        String content = new String( new char[ 20 ] ).replace( '\0', 'x' );
+        
+        for ( int i = 0; i < 5; i++ )
+        {
+            read( cache.put( request( "p" + i ), response( "20 text/plain", content ) ) );
+        }
+        
+        assertNull( cache.get( request( "p0" ) ) );
+        assertNotNull( cache.get( request( "p4" ) ) );
+        assertEquals( true, cache.size() <= 100 );
+        
+        // content larger than a quarter of the maximum size is not cached
+        read( cache.put( request( "big" ), response( "20 text/plain", content + content ) ) );
+        assertNull( cache.get( request( "big" ) ) );
+    }
+    
+    @Test
+    public void testOtherResponsesUnchanged()
+    {
+        MemoryResponseCache cache = new MemoryResponseCache();
+        GeminiResponse response = response( "31 gemini://localhost/bar", "" );
+        
+        assertEquals( response, cache.put( request( "foo" ), response ) );
+        assertNull( cache.get( request( "foo" ) ) );
+    }
+    
+    private static GeminiRequest request( String path )
+    {
+        return new GeminiRequestBuilder( "localhost" ).withPath( path ).build();
+    }
+    
+    private static GeminiResponse response( String header, String content )
+    {
+        return GeminiResponseFactory.create( header,
+            new ByteArrayInputStream( content.getBytes( StandardCharsets.UTF_8 ) ) );
+    }
+    
+    private static String read( GeminiResponse response ) throws IOException
+    {
+        assertInstanceOf( GeminiSuccessResponse.class, response );
+        return new String( ( ( GeminiSuccessResponse ) response ).getContent().readAllBytes(),
+            StandardCharsets.UTF_8 );
+    }
+}
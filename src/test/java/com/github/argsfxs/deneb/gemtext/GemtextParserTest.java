@@ -0,0 +1,145 @@
+package com.github.argsfxs.deneb.gemtext;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GemtextParserTest
+{
+    @Test
+    public void testLineTypes()
+    {
+        GemtextParser parser = new GemtextParser( new StringReader(
+            "# Title\r\n## Sub\n###Subsub\n=> gemini://example.org/  Example\n=>/relative\n" +
+                "=>\n* item\n*no item\n> quote\nplain text\n\n" ) );
+        
+        GemtextLine line = parser.next();
+        assertEquals( GemtextLine.Type.HEADING, line.getType() );
+        assertEquals( 1, line.getLevel() );
+        assertEquals( "Title", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.HEADING, line.getType() );
+        assertEquals( 2, line.getLevel() );
+        assertEquals( "Sub", line.getText() );
+        
+        line = parser.next();
+        assertEquals( 3, line.getLevel() );
+        assertEquals( "Subsub", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.LINK, line.getType() );
+        assertEquals( "gemini://example.org/", line.getUrl() );
+        assertEquals( "Example", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.LINK, line.getType() );
+        assertEquals( "/relative", line.getUrl() );
+        assertEquals( "", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.TEXT, line.getType() );
+        assertEquals( "=>", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.LIST_ITEM, line.getType() );
+        assertEquals( "item", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.TEXT, line.getType() );
+        assertEquals( "*no item", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.QUOTE, line.getType() );
+        assertEquals( "quote", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.TEXT, line.getType() );
+        assertEquals( "plain text", line.getText() );
+        
+        line = parser.next();
+        assertEquals( GemtextLine.Type.TEXT, line.getType() );
+        assertEquals( "", line.getText() );
+        
+        assertNull( parser.next() );
+    }
+    
+    @Test
+    public void testPreformatted()
+    {
+        List<GemtextLine> lines = new ArrayList<>();
+        new GemtextParser( new StringReader( "```ascii art\n# no heading\n=> no link\n```\n# heading" ) )
+            .forEach( lines::add );
+        
+        assertEquals( 5, lines.size() );
+        assertEquals( GemtextLine.Type.PREFORMAT_TOGGLE, lines.get( 0 ).getType() );
+        assertEquals( "ascii art", lines.get( 0 ).getText() );
+        assertEquals( GemtextLine.Type.PREFORMATTED, lines.get( 1 ).getType() );
+        assertEquals( "# no heading", lines.get( 1 ).getText() );
+        assertEquals( GemtextLine.Type.PREFORMATTED, lines.get( 2 ).getType() );
+        assertEquals( GemtextLine.Type.PREFORMAT_TOGGLE, lines.get( 3 ).getType() );
+        assertEquals( "", lines.get( 3 ).getText() );
+        assertEquals( GemtextLine.Type.HEADING, lines.get( 4 ).getType() );
+    }
+    
+    @Test
+    public void testCharset()
+    {
+        byte[] content = "# Café".getBytes( StandardCharsets.ISO_8859_1 );
+        GemtextLine line = new GemtextParser( new ByteArrayInputStream( content ),
+            StandardCharsets.ISO_8859_1 ).next();
+        assertEquals( "Café", line.getText() );
+    }
+    
+    @Test
+    public void testPublish()
+    {
+        GemtextParser parser = new GemtextParser( new StringReader( "# Foo\nbar\n=> baz" ) );
+        List<GemtextLine> lines = new ArrayList<>();
+        List<Flow.Subscription> subscription = new ArrayList<>();
+        boolean[] completed = new boolean[ 1 ];
+        parser.publish( Runnable::run ).subscribe( new Flow.Subscriber<GemtextLine>()
+        {
+            @Override
+            public void onSubscribe( Flow.Subscription s )
+            {
+                subscription.add( s );
+            }
+            
+            @Override
+            public void onNext( GemtextLine item )
+            {
+                lines.add( item );
+            }
+            
+            @Override
+            public void onError( Throwable throwable )
+            {
+            }
+            
+            @Override
+            public void onComplete()
+            {
+                completed[ 0 ] = true;
+            }
+        } );
+        
+        subscription.get( 0 ).request( 2 );
+        assertEquals( 2, lines.size() );
+        assertEquals( GemtextLine.Type.HEADING, lines.get( 0 ).getType() );
+        
+        subscription.get( 0 ).request( 2 );
+        assertEquals( 3, lines.size() );
+        assertEquals( "baz", lines.get( 2 ).getUrl() );
+        assertTrue( completed[ 0 ] );
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.argsfxs.deneb.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramTest
+{
+    @Test
+    public void testBuckets()
+    {
+        long previous = -1;
+        for ( long value = 0; value < 1_000_000; value += 1 + value / 100 )
+        {
+            int index = Histogram.index( value );
+            long highest = Histogram.highestValue( index );
+            assertTrue( value <= highest );
+            // the bucket is narrower than 1/16 of its values
+            assertTrue( highest - value <= Math.max( 0, value / 16 ) );
+            assertTrue( index >= 0 && previous <= highest );
+            previous = highest;
+        }
+        assertEquals( Histogram.index( 1L << 50 ), Histogram.index( Long.MAX_VALUE ) );
+    }
+    
+    @Test
+    public void testSnapshot()
+    {
+        Histogram histogram = new Histogram();
+        for ( int i = 1; i <= 1000; i++ )
+        {
+            histogram.record( i );
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        
+        assertEquals( 1000, snapshot.getCount() );
+        assertEquals( 500.5, snapshot.getMean(), 0.001 );
+        assertBetween( 500, snapshot.getValueAtPercentile( 50 ) );
+        assertBetween( 990, snapshot.getValueAtPercentile( 99 ) );
+        assertBetween( 1000, snapshot.getMax() );
+    }
+    
+    @Test
+    public void testReset() throws InterruptedException
+    {
+        Histogram histogram = new Histogram();
+        Thread thread = new Thread( () -> histogram.record( 42 ) );
+        thread.start();
+        thread.join();
+        histogram.record( 7 );
+        assertEquals( 2, histogram.snapshot().getCount() );
+        
+        histogram.reset();
+        HistogramSnapshot snapshot = histogram.snapshot();
+        
+        assertEquals( 0, snapshot.getCount() );
+        assertEquals( 0, snapshot.getMax() );
+    }
+    
+    private static void assertBetween( long expected, long actual )
+    {
+        assertTrue( actual >= expected && actual <= expected + expected / 16,
+            "expected " + expected + " but was " + actual );
+    }
+}
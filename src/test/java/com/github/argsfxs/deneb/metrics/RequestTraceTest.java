@@ -0,0 +1,135 @@
+package com.github.argsfxs.deneb.metrics;
+
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.request.GeminiRequest;
+import com.github.argsfxs.deneb.request.GeminiRequestBuilder;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.util.Status;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RequestTraceTest
+{
+    private final GeminiRequest request =
+        new GeminiRequestBuilder( "localhost", new RequestOptions() ).build();
+    
+    @Test
+    public void testNone()
+    {
+        InputStream in = new ByteArrayInputStream( new byte[ 0 ] );
+        
+        assertSame( RequestTrace.NONE, RequestTrace.of( null, request ) );
+        assertSame( in, RequestTrace.NONE.wrap( in ) );
+    }
+    
+    @Test
+    public void testStream() throws IOException
+    {
+        List<String> events = new ArrayList<>();
+        RequestTrace trace = RequestTrace.of( new RequestListener()
+        {
+            @Override
+            public void firstByteReceived( GeminiRequest request, long nanoTime )
+            {
+                events.add( "first byte" );
+            }
+            
+            @Override
+            public void bodyCompleted( GeminiRequest request, long bytes, long nanoTime )
+            {
+                events.add( "body " + bytes );
+            }
+            
+            @Override
+            public void requestFailed( GeminiRequest request, Throwable error, long nanoTime )
+            {
+                events.add( "failed" );
+            }
+        }, request );
+        InputStream in = trace.wrap( new ByteArrayInputStream(
+            "20 text/gemini\r\nHello".getBytes( StandardCharsets.UTF_8 ) ) );
+        
+        GeminiResponse response = GeminiResponseFactory.create( in );
+        assertEquals( Status.SUCCESS, response.getStatus() );
+        assertEquals( List.of( "first byte" ), events );
+        in.readAllBytes();
+        in.read();
+        assertEquals( List.of( "first byte", "body 5" ), events );
+        trace.failed( new IOException() );
+        trace.failed( new IOException() );
+        assertEquals( List.of( "first byte", "body 5", "failed" ), events );
+    }
+    
+    @Test
+    public void testStatusCounters()
+    {
+        StatusCounters counters = new StatusCounters();
+        RequestTrace trace = RequestTrace.of( counters, request );
+        
+        trace.headerReceived( response( "20 text/gemini" ) );
+        trace.headerReceived( response( "21 text/plain" ) );
+        trace.headerReceived( response( "51 not found" ) );
+        trace.failed( new IOException() );
+        
+        assertEquals( 2, counters.getCount( Status.SUCCESS ) );
+        assertEquals( 1, counters.getCount( Status.GONE ) );
+        assertEquals( 0, counters.getCount( Status.SLOW_DOWN ) );
+        assertEquals( 1, counters.getFailures() );
+        counters.reset();
+        assertEquals( 0, counters.getCount( Status.SUCCESS ) );
+        assertEquals( 0, counters.getFailures() );
+    }
+    
+    @Test
+    public void testMetrics() throws IOException
+    {
+        ClientMetrics metrics = new ClientMetrics();
+        RequestTrace trace = RequestTrace.of( null, metrics, request );
+        trace.started();
+        trace.connected();
+        trace.handshakeCompleted();
+        trace.headerReceived( response( "51 not found" ) );
+        
+        assertEquals( 1, metrics.getHandshakeTime().snapshot().getCount() );
+        assertEquals( 1, metrics.getTimeToHeader().snapshot().getCount() );
+        assertEquals( 1, metrics.getTimeToHeader( Status.GONE ).snapshot().getCount() );
+        assertEquals( 0, metrics.getTimeToHeader( Status.SUCCESS ).snapshot().getCount() );
+        assertEquals( 1, metrics.getHost( "localhost" ).getTimeToHeader().snapshot().getCount() );
+        
+        RequestTrace other = RequestTrace.of( null, metrics, request );
+        byte[] header = "20 text/plain\r\n".getBytes( StandardCharsets.UTF_8 );
+        // the header is followed by 100 bytes of content
+        byte[] bytes = Arrays.copyOf( header, header.length + 100 );
+        GeminiSuccessResponse success = ( GeminiSuccessResponse ) GeminiResponseFactory.create(
+            other.wrap( new ByteArrayInputStream( bytes ) ) );
+        other.headerReceived( success );
+        while ( success.getContent().read( new byte[ 10 ] ) != -1 )
+        {
+            // read the content
+        }
+        
+        assertEquals( 1, metrics.getThroughput().snapshot().getCount() );
+        
+        metrics.reset();
+        assertEquals( 0, metrics.getTimeToHeader().snapshot().getCount() );
+        assertNull( metrics.getHost( "localhost" ) );
+    }
+    
+    private static GeminiResponse response( String header )
+    {
+        return GeminiResponseFactory.create( header, new ByteArrayInputStream( new byte[ 0 ] ) );
+    }
+}
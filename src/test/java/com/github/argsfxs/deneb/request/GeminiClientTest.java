@@ -0,0 +1,376 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.exception.SocketConnectException;
+import com.github.argsfxs.deneb.exception.SocketHandshakeException;
+import com.github.argsfxs.deneb.exception.SocketIOException;
+import com.github.argsfxs.deneb.options.ClientOptions;
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiSuccessResponse;
+import com.github.argsfxs.deneb.response.ResponsePart;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeminiClientTest
+{
+    @Test
+    public void buildDoesNotConnect() throws IOException
+    {
+        GeminiRequest request = new GeminiRequestBuilder( "localhost" )
+            .withPort( closedPort() )
+            .withPath( "foo" )
+            .build();
+        
+        assertEquals( "gemini://localhost/foo", request.getUrl() );
+        assertThrows( SocketConnectException.class, request::send );
+    }
+    
+    @Test
+    public void sendAsyncFailure() throws IOException
+    {
+        AtomicInteger executed = new AtomicInteger();
+        GeminiClient client = new GeminiClient( command -> {
+            executed.incrementAndGet();
+            command.run();
+        } );
+        GeminiRequest request = new GeminiRequestBuilder( "localhost" )
+            .withPort( closedPort() )
+            .build();
+        
+        CompletableFuture<GeminiResponse> future = client.sendAsync( request );
+        
+        ExecutionException ee = assertThrows( ExecutionException.class,
+            future::get );
+        assertInstanceOf( SocketConnectException.class, ee.getCause() );
+        assertEquals( 1, executed.get() );
+    }
+    
+    @Test
+    public void fetchAllLimitsConnectionsPerHost() throws IOException
+    {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        ClientOptions options = new ClientOptions();
+        options.setExecutor( tasks::add );
+        options.setMaxConnectionsPerHost( 2 );
+        GeminiClient client = new GeminiClient( options );
+        int port = closedPort();
+        List<GeminiRequest> requests = new ArrayList<>();
+        for ( int i = 0; i < 5; i++ )
+        {
+            requests.add( new GeminiRequestBuilder( "localhost" )
+                .withPort( port )
+                .withPath( "foo" + i )
+                .build() );
+        }
+        
+        List<CompletableFuture<GeminiResponse>> responses = client.fetchAll( requests );
+        
+        // the first request is sent on its own, then up to two at a time
+        assertEquals( 5, responses.size() );
+        assertEquals( 1, tasks.size() );
+        tasks.poll().run();
+        assertTrue( responses.get( 0 ).isCompletedExceptionally() );
+        assertEquals( 2, tasks.size() );
+        tasks.poll().run();
+        assertEquals( 2, tasks.size() );
+        while ( !tasks.isEmpty() )
+        {
+            tasks.poll().run();
+        }
+        for ( CompletableFuture<GeminiResponse> response : responses )
+        {
+            ExecutionException ee = assertThrows( ExecutionException.class, response::get );
+            assertInstanceOf( SocketConnectException.class, ee.getCause() );
+        }
+    }
+    
+    @Test
+    public void fetchAllHoldsConnectionsOfUnreadContent() throws Exception
+    {
+        ClientOptions options = new ClientOptions();
+        options.setMaxConnectionsPerHost( 2 );
+        GeminiClient client = new GeminiClient( options );
+        AtomicInteger accepted = new AtomicInteger();
+        try ( SSLServerSocket serverSocket = loopbackServer() )
+        {
+            serve( serverSocket, accepted, "20 text/plain\r\nfoo" );
+            List<GeminiRequest> requests = new ArrayList<>();
+            for ( int i = 0; i < 4; i++ )
+            {
+                requests.add( new GeminiRequestBuilder( "localhost" )
+                    .withPort( serverSocket.getLocalPort() )
+                    .withPath( "foo" + i )
+                    .build() );
+            }
+            
+            List<CompletableFuture<GeminiResponse>> responses = client.fetchAll( requests );
+            
+            // the content is never read, so the connections stay open
+            GeminiResponse first = responses.get( 0 ).get( 5, TimeUnit.SECONDS );
+            GeminiResponse second = responses.get( 1 ).get( 5, TimeUnit.SECONDS );
+            assertInstanceOf( GeminiSuccessResponse.class, first );
+            Thread.sleep( 200 );
+            assertFalse( responses.get( 2 ).isDone() );
+            assertEquals( 2, accepted.get() );
+            
+            first.close();
+            GeminiResponse third = responses.get( 2 ).get( 5, TimeUnit.SECONDS );
+            Thread.sleep( 200 );
+            assertFalse( responses.get( 3 ).isDone() );
+            assertEquals( 3, accepted.get() );
+            
+            // reading the content to the end releases the connection as well
+            assertEquals( "foo", new String(
+                ( ( GeminiSuccessResponse ) second ).getContent().readNBytes( 3 ),
+                StandardCharsets.UTF_8 ) );
+            second.close();
+            responses.get( 3 ).get( 5, TimeUnit.SECONDS ).close();
+            third.close();
+            assertEquals( 4, accepted.get() );
+        }
+    }
+    
+    @Test
+    public void publishSendsOnDemand() throws IOException
+    {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        GeminiClient client = new GeminiClient( tasks::add );
+        GeminiRequest request = new GeminiRequestBuilder( "localhost" )
+            .withPort( closedPort() )
+            .build();
+        List<Flow.Subscription> subscription = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        
+        client.publish( request ).subscribe( new Flow.Subscriber<ResponsePart>()
+        {
+            @Override
+            public void onSubscribe( Flow.Subscription s )
+            {
+                subscription.add( s );
+            }
+            
+            @Override
+            public void onNext( ResponsePart item )
+            {
+            }
+            
+            @Override
+            public void onError( Throwable throwable )
+            {
+                errors.add( throwable );
+            }
+            
+            @Override
+            public void onComplete()
+            {
+            }
+        } );
+        
+        // nothing is sent before the subscriber asks for the header
+        assertTrue( tasks.isEmpty() );
+        subscription.get( 0 ).request( 1 );
+        while ( !tasks.isEmpty() )
+        {
+            tasks.poll().run();
+        }
+        assertEquals( 1, errors.size() );
+        assertInstanceOf( SocketConnectException.class, errors.get( 0 ) );
+    }
+    
+    @Test
+    public void handshakeTimeout() throws IOException
+    {
+        RequestOptions options = new RequestOptions();
+        options.setHandshakeTimeout( 200 );
+        assertTimeout( new GeminiClient(), options );
+    }
+    
+    @Test
+    public void requestTimeout() throws IOException
+    {
+        RequestOptions options = new RequestOptions();
+        options.setHandshakeTimeout( 0 );
+        options.setRequestTimeout( 200 );
+        assertTimeout( new GeminiClient(), options );
+    }
+    
+    @Test
+    public void handshakeTimeoutNio() throws IOException
+    {
+        ClientOptions clientOptions = new ClientOptions();
+        clientOptions.setNioEnabled( true );
+        RequestOptions options = new RequestOptions();
+        options.setHandshakeTimeout( 200 );
+        try ( GeminiClient client = new GeminiClient( clientOptions ) )
+        {
+            assertTimeout( client, options );
+        }
+    }
+    
+    @Test
+    public void nioSmallReceiveBuffer() throws Exception
+    {
+        ClientOptions clientOptions = new ClientOptions();
+        clientOptions.setNioEnabled( true );
+        clientOptions.setReceiveBufferSize( 64 );
+        String content = "x".repeat( 5000 );
+        try ( GeminiClient client = new GeminiClient( clientOptions );
+              SSLServerSocket serverSocket = loopbackServer() )
+        {
+            serve( serverSocket, new AtomicInteger(), "20 text/plain\r\n" + content );
+            GeminiRequest request = new GeminiRequestBuilder( "localhost" )
+                .withPort( serverSocket.getLocalPort() )
+                .build();
+            
+            GeminiResponse response = client.sendAsync( request ).get( 5, TimeUnit.SECONDS );
+            assertInstanceOf( GeminiSuccessResponse.class, response );
+            assertEquals( content, new String( ( ( GeminiSuccessResponse ) response ).getContent()
+                .readNBytes( content.length() ), StandardCharsets.UTF_8 ) );
+            response.close();
+        }
+    }
+    
+    @Test
+    public void nioHeaderTooLong() throws Exception
+    {
+        ClientOptions clientOptions = new ClientOptions();
+        clientOptions.setNioEnabled( true );
+        clientOptions.setReceiveBufferSize( 64 );
+        try ( GeminiClient client = new GeminiClient( clientOptions );
+              SSLServerSocket serverSocket = loopbackServer() )
+        {
+            // the header doesn't fit into the receive buffer
+            serve( serverSocket, new AtomicInteger(), "20 " + "x".repeat( 2000 ) + "\r\n" );
+            GeminiRequest request = new GeminiRequestBuilder( "localhost" )
+                .withPort( serverSocket.getLocalPort() )
+                .build();
+            
+            ExecutionException e = assertThrows( ExecutionException.class,
+                () -> client.sendAsync( request ).get( 5, TimeUnit.SECONDS ) );
+            assertInstanceOf( SocketIOException.class, e.getCause() );
+        }
+    }
+    
+    private static void assertTimeout( GeminiClient client, RequestOptions options )
+        throws IOException
+    {
+        // the server accepts connections but never answers the handshake
+        try ( ServerSocket serverSocket = new ServerSocket( 0 ) )
+        {
+            GeminiRequest request = new GeminiRequestBuilder( "localhost", options )
+                .withPort( serverSocket.getLocalPort() )
+                .build();
+            
+            SocketHandshakeException e = assertThrows( SocketHandshakeException.class,
+                () -> client.send( request ) );
+            assertInstanceOf( SocketTimeoutException.class, e.getCause() );
+        }
+    }
+    
+    private static SSLServerSocket loopbackServer() throws Exception
+    {
+        char[] password = "loopback".toCharArray();
+        KeyStore keyStore = KeyStore.getInstance( "PKCS12" );
+        try ( InputStream in = GeminiClientTest.class.getResourceAsStream( "/loopback.p12" ) )
+        {
+            keyStore.load( in, password );
+        }
+        KeyManagerFactory kmf =
+            KeyManagerFactory.getInstance( KeyManagerFactory.getDefaultAlgorithm() );
+        kmf.init( keyStore, password );
+        SSLContext context = SSLContext.getInstance( "TLSv1.3" );
+        context.init( kmf.getKeyManagers(), null, null );
+        return ( SSLServerSocket ) context.getServerSocketFactory().createServerSocket( 0 );
+    }
+    
+    /**
+     * Answers every request with the given response on a server thread and keeps the connection
+     * open until the client closes it.
+     */
+    private static void serve( SSLServerSocket serverSocket, AtomicInteger accepted,
+        String response )
+    {
+        Thread server = new Thread( () -> accept( serverSocket, accepted,
+            response.getBytes( StandardCharsets.UTF_8 ) ) );
+        server.setDaemon( true );
+        server.start();
+    }
+    
+    private static void accept( SSLServerSocket serverSocket, AtomicInteger accepted,
+        byte[] response )
+    {
+        while ( !serverSocket.isClosed() )
+        {
+            try
+            {
+                Socket socket = serverSocket.accept();
+                accepted.incrementAndGet();
+                Thread connection = new Thread( () -> {
+                    try ( socket )
+                    {
+                        InputStream in = socket.getInputStream();
+                        int previous = -1;
+                        int current;
+                        while ( ( current = in.read() ) != -1
+                            && !( previous == '\r' && current == '\n' ) )
+                        {
+                            previous = current;
+                        }
+                        OutputStream out = socket.getOutputStream();
+                        out.write( response );
+                        out.flush();
+                        while ( in.read() != -1 )
+                        {
+                            // wait for the client to close the connection
+                        }
+                    }
+                    catch ( IOException e )
+                    {
+                        // the client went away
+                    }
+                } );
+                connection.setDaemon( true );
+                connection.start();
+            }
+            catch ( IOException e )
+            {
+                return;
+            }
+        }
+    }
+    
+    private static int closedPort() throws IOException
+    {
+        try ( ServerSocket serverSocket = new ServerSocket( 0 ) )
+        {
+            return serverSocket.getLocalPort();
+        }
+    }
+    
+}
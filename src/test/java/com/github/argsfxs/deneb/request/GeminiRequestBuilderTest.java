@@ -1,9 +1,11 @@
 package com.github.argsfxs.deneb.request;
 
 import com.github.argsfxs.deneb.exception.URILengthExceededException;
+import com.github.argsfxs.deneb.options.RequestOptions;
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
@@ -38,6 +40,40 @@ public class GeminiRequestBuilderTest
         assertEquals( "foo://milky.way/", url );
     }
     
+    @Test
+    public void testEquals()
+    {
+        RequestOptions options = new RequestOptions();
+        GeminiRequest request = new GeminiRequestBuilder( "milky.way", options )
+            .withPath( "bar" )
+            .build();
+        GeminiRequest same = new GeminiRequestBuilder( "milky.way", options )
+            .withPath( "/bar" )
+            .build();
+        
+        assertEquals( request, same );
+        assertEquals( request.hashCode(), same.hashCode() );
+        assertNotEquals( request, new GeminiRequestBuilder( "milky.way", options )
+            .withPath( "bar" )
+            .withPort( 1966 )
+            .build() );
+        assertEquals( request, new GeminiRequestBuilder( "milky.way" )
+            .withPath( "bar" )
+            .build() );
+    }
+    
+    @Test
+    public void testOptionsCopied()
+    {
+        RequestOptions options = new RequestOptions();
+        GeminiRequest request = new GeminiRequestBuilder( "milky.way", options ).build();
+        options.setReadTimeout( 1000 );
+        request.getOptions().setReadTimeout( 2000 );
+        
+        assertEquals( 30000, request.getOptions().getReadTimeout() );
+        assertNotEquals( request, new GeminiRequestBuilder( "milky.way", options ).build() );
+    }
+    
     @Test
     public void testUrlTooLong()
     {
@@ -0,0 +1,92 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.options.ClientOptions;
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.response.GeminiResponse;
+import com.github.argsfxs.deneb.response.GeminiResponseFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HostSchedulerTest
+{
+    @Test
+    public void testRateLimit()
+    {
+        ClientOptions options = new ClientOptions();
+        options.setHostRequestRate( 1 );
+        options.setHostRequestBurst( 2 );
+        HostScheduler scheduler = new HostScheduler( options );
+        
+        assertEquals( 0, scheduler.reserve( request( "localhost", 1965 ) ) );
+        assertEquals( 0, scheduler.reserve( request( "LOCALHOST", 1965 ) ) );
+        long delay = scheduler.reserve( request( "localhost", 1965 ) );
+        assertTrue( delay > TimeUnit.MILLISECONDS.toNanos( 900 ) );
+        assertTrue( delay <= TimeUnit.SECONDS.toNanos( 1 ) );
+        assertTrue( scheduler.reserve( request( "localhost", 1965 ) ) > delay );
+        assertEquals( 0, scheduler.reserve( request( "localhost", 1966 ) ) );
+        assertEquals( 0, scheduler.reserve( request( "example.org", 1965 ) ) );
+    }
+    
+    @Test
+    public void testSlowDown()
+    {
+        ClientOptions options = new ClientOptions();
+        options.setMaxRetries( 1 );
+        HostScheduler scheduler = new HostScheduler( options );
+        GeminiRequest request = request( "localhost", 1965 );
+        
+        long delay = scheduler.retryDelay( request, response( "44 3" ), 0 );
+        
+        assertEquals( TimeUnit.SECONDS.toNanos( 3 ), delay );
+        // other requests to the same server are paused as well
+        assertTrue( scheduler.reserve( request ) > TimeUnit.SECONDS.toNanos( 2 ) );
+        assertEquals( 0, scheduler.reserve( request( "localhost", 1966 ) ) );
+        assertEquals( -1, scheduler.retryDelay( request, response( "44 3" ), 1 ) );
+        assertEquals( -1, scheduler.retryDelay( request, response( "44 3600" ), 0 ) );
+    }
+    
+    @Test
+    public void testBackoff()
+    {
+        ClientOptions options = new ClientOptions();
+        options.setMaxRetries( 3 );
+        options.setRetryBackoff( 100 );
+        HostScheduler scheduler = new HostScheduler( options );
+        GeminiRequest request = request( "localhost", 1965 );
+        
+        assertEquals( TimeUnit.MILLISECONDS.toNanos( 100 ),
+            scheduler.retryDelay( request, response( "41 unavailable" ), 0 ) );
+        assertEquals( TimeUnit.MILLISECONDS.toNanos( 400 ),
+            scheduler.retryDelay( request, response( "41 unavailable" ), 2 ) );
+        assertEquals( -1, scheduler.retryDelay( request, response( "41 unavailable" ), 3 ) );
+        assertEquals( TimeUnit.MILLISECONDS.toNanos( 100 ),
+            scheduler.retryDelay( request, response( "44 soon" ), 0 ) );
+        assertEquals( -1, scheduler.retryDelay( request, response( "51 not found" ), 0 ) );
+        assertEquals( -1, scheduler.retryDelay( request, response( "20 text/gemini" ), 0 ) );
+    }
+    
+    @Test
+    public void testEnabled()
+    {
+        ClientOptions options = new ClientOptions();
+        assertFalse( HostScheduler.isEnabled( options ) );
+        options.setMaxRetries( 1 );
+        assertTrue( HostScheduler.isEnabled( options ) );
+    }
+    
+    private static GeminiRequest request( String host, int port )
+    {
+        return new GeminiRequest( "gemini://" + host + "/", host, port, new RequestOptions() );
+    }
+    
+    private static GeminiResponse response( String header )
+    {
+        return GeminiResponseFactory.create( header, new ByteArrayInputStream( new byte[ 0 ] ) );
+    }
+}
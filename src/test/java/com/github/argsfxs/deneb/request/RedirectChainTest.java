@@ -0,0 +1,133 @@
+package com.github.argsfxs.deneb.request;
+
+import com.github.argsfxs.deneb.exception.RedirectException;
+import com.github.argsfxs.deneb.options.RedirectPolicy;
+import com.github.argsfxs.deneb.options.RequestOptions;
+import com.github.argsfxs.deneb.response.GeminiRedirectResponse;
+import com.github.argsfxs.deneb.util.Status;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RedirectChainTest
+{
+    @Test
+    public void testRelativeRedirect()
+    {
+        RedirectChain chain = new RedirectChain( new PermanentRedirects(),
+            options( RedirectPolicy.SAME_HOST ) );
+        GeminiRequest request = request( "gemini://localhost/docs/a.gmi" );
+        
+        GeminiRequest next = chain.next( chain.start( request ),
+            redirect( Status.TEMPORARY_REDIRECTION, "b.gmi" ) );
+        
+        assertEquals( "gemini://localhost/docs/b.gmi", next.getUrl() );
+        assertEquals( "localhost", next.getHost() );
+        assertEquals( 1965, next.getPort() );
+        
+        chain = new RedirectChain( new PermanentRedirects(),
+            options( RedirectPolicy.SAME_HOST ) );
+        request = new GeminiRequest( "gemini://localhost/a", "localhost", 1966,
+            new RequestOptions() );
+        next = chain.next( chain.start( request ),
+            redirect( Status.TEMPORARY_REDIRECTION, "/b" ) );
+        assertEquals( 1966, next.getPort() );
+    }
+    
+    @Test
+    public void testCrossHostPolicy()
+    {
+        GeminiRequest request = request( "gemini://localhost/" );
+        
+        RedirectChain chain = new RedirectChain( new PermanentRedirects(),
+            options( RedirectPolicy.SAME_HOST ) );
+        assertNull( chain.next( chain.start( request ),
+            redirect( Status.TEMPORARY_REDIRECTION, "gemini://example.org/" ) ) );
+        
+        chain = new RedirectChain( new PermanentRedirects(), options( RedirectPolicy.ALWAYS ) );
+        GeminiRequest next = chain.next( chain.start( request ),
+            redirect( Status.TEMPORARY_REDIRECTION, "gemini://example.org:1966/" ) );
+        assertEquals( "example.org", next.getHost() );
+        assertEquals( 1966, next.getPort() );
+        
+        assertNull( chain.next( next, redirect( Status.TEMPORARY_REDIRECTION,
+            "https://example.org/" ) ) );
+    }
+    
+    @Test
+    public void testPermanentRedirectRemembered()
+    {
+        PermanentRedirects permanentRedirects = new PermanentRedirects();
+        RequestOptions options = options( RedirectPolicy.ALWAYS );
+        GeminiRequest request = request( "gemini://localhost/old" );
+        
+        RedirectChain chain = new RedirectChain( permanentRedirects, options );
+        assertSame( request, chain.start( request ) );
+        chain.next( request, redirect( Status.PERMANENT_REDIRECTION, "/new" ) );
+        
+        chain = new RedirectChain( permanentRedirects, options );
+        assertEquals( "gemini://localhost/new", chain.start( request ).getUrl() );
+        
+        // the same URL requested from another port is a different resource
+        GeminiRequest otherPort = new GeminiRequest( "gemini://localhost/old", "localhost", 1966,
+            options );
+        chain = new RedirectChain( permanentRedirects, options );
+        assertSame( otherPort, chain.start( otherPort ) );
+    }
+    
+    @Test
+    public void testLoop()
+    {
+        RedirectChain chain = new RedirectChain( new PermanentRedirects(),
+            options( RedirectPolicy.ALWAYS ) );
+        GeminiRequest request = chain.start( request( "gemini://localhost/a" ) );
+        GeminiRequest next = chain.next( request,
+            redirect( Status.TEMPORARY_REDIRECTION, "/b" ) );
+        
+        assertThrows( RedirectException.class,
+            () -> chain.next( next, redirect( Status.TEMPORARY_REDIRECTION, "/a" ) ) );
+    }
+    
+    @Test
+    public void testTooManyRedirects()
+    {
+        RequestOptions options = options( RedirectPolicy.ALWAYS );
+        options.setMaxRedirects( 2 );
+        RedirectChain chain = new RedirectChain( new PermanentRedirects(), options );
+        GeminiRequest request = chain.start( request( "gemini://localhost/0" ) );
+        request = chain.next( request, redirect( Status.TEMPORARY_REDIRECTION, "/1" ) );
+        GeminiRequest last = chain.next( request,
+            redirect( Status.TEMPORARY_REDIRECTION, "/2" ) );
+        
+        assertThrows( RedirectException.class,
+            () -> chain.next( last, redirect( Status.TEMPORARY_REDIRECTION, "/3" ) ) );
+    }
+    
+    private static RequestOptions options( RedirectPolicy policy )
+    {
+        RequestOptions options = new RequestOptions();
+        options.setRedirectPolicy( policy );
+        return options;
+    }
+    
+    private static GeminiRequest request( String url )
+    {
+        URI uri = URI.create( url );
+        return new GeminiRequest( url, uri.getHost(), 1965, new RequestOptions() );
+    }
+    
+    private static GeminiRedirectResponse redirect( Status status, String uri )
+    {
+        GeminiRedirectResponse response = mock( GeminiRedirectResponse.class );
+        when( response.getStatus() ).thenReturn( status );
+        when( response.getURI() ).thenReturn( URI.create( uri ) );
+        return response;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.argsfxs.deneb.request;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReleasingInputStreamTest
+{
+    @Test
+    public void testReleaseOnEndOfStream() throws IOException
+    {
+        AtomicInteger released = new AtomicInteger();
+        ReleasingInputStream in = new ReleasingInputStream(
+            new ByteArrayInputStream( new byte[ 10 ] ), released::incrementAndGet );
+        
+        assertEquals( 10, in.read( new byte[ 16 ] ) );
+        assertEquals( 0, released.get() );
+        assertEquals( -1, in.read() );
+        assertEquals( 1, released.get() );
+        in.close();
+        assertEquals( 1, released.get() );
+    }
+    
+    @Test
+    public void testReleaseOnClose() throws IOException
+    {
+        AtomicInteger released = new AtomicInteger();
+        ReleasingInputStream in = new ReleasingInputStream(
+            new ByteArrayInputStream( new byte[ 10 ] ), released::incrementAndGet );
+        
+        assertEquals( 0, in.read() );
+        in.close();
+        in.close();
+        assertEquals( 1, released.get() );
+    }
+}
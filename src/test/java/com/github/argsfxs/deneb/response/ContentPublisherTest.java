@@ -0,0 +1,187 @@
+package com.github.argsfxs.deneb.response;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ContentPublisherTest
+{
+    @Test
+    public void testDemand()
+    {
+        byte[] content = new byte[ 40000 ];
+        for ( int i = 0; i < content.length; i++ )
+        {
+            content[ i ] = ( byte ) i;
+        }
+        AtomicInteger reads = new AtomicInteger();
+        ByteArrayInputStream in = new ByteArrayInputStream( content )
+        {
+            @Override
+            public synchronized int read( byte[] b, int off, int len )
+            {
+                reads.incrementAndGet();
+                return super.read( b, off, len );
+            }
+        };
+        Collector collector = new Collector();
+        new ContentPublisher( in, Runnable::run ).subscribe( collector );
+        
+        // nothing is read before it has been requested
+        assertEquals( 0, reads.get() );
+        collector.subscription.request( 1 );
+        assertEquals( 1, reads.get() );
+        assertEquals( 1, collector.chunks );
+        
+        collector.subscription.request( Long.MAX_VALUE );
+        assertTrue( collector.completed );
+        assertArrayEquals( content, collector.content.toByteArray() );
+    }
+    
+    @Test
+    public void testCancel()
+    {
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayInputStream in = new ByteArrayInputStream( new byte[ 40000 ] )
+        {
+            @Override
+            public void close()
+            {
+                closed.set( true );
+            }
+        };
+        Collector collector = new Collector();
+        new ContentPublisher( in, Runnable::run ).subscribe( collector );
+        collector.subscription.request( 1 );
+        collector.subscription.cancel();
+        collector.subscription.request( 1 );
+        
+        assertTrue( closed.get() );
+        assertEquals( 1, collector.chunks );
+        assertTrue( collector.errors.isEmpty() );
+    }
+    
+    @Test
+    public void testCancelBlockedRead() throws InterruptedException
+    {
+        CountDownLatch reading = new CountDownLatch( 1 );
+        CountDownLatch closed = new CountDownLatch( 1 );
+        InputStream in = new InputStream()
+        {
+            @Override
+            public int read() throws IOException
+            {
+                // blocks like a connection waiting for the server
+                reading.countDown();
+                try
+                {
+                    closed.await();
+                }
+                catch ( InterruptedException e )
+                {
+                    throw new InterruptedIOException();
+                }
+                throw new IOException( "Stream closed" );
+            }
+            
+            @Override
+            public void close()
+            {
+                closed.countDown();
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Collector collector = new Collector();
+        new ContentPublisher( in, executor ).subscribe( collector );
+        collector.subscription.request( 1 );
+        assertTrue( reading.await( 5, TimeUnit.SECONDS ) );
+        
+        collector.subscription.cancel();
+        executor.shutdown();
+        
+        assertTrue( executor.awaitTermination( 5, TimeUnit.SECONDS ) );
+        assertEquals( 0, collector.chunks );
+        assertTrue( collector.errors.isEmpty() );
+    }
+    
+    @Test
+    public void testInvalidRequest()
+    {
+        Collector collector = new Collector();
+        new ContentPublisher( new ByteArrayInputStream( new byte[ 1 ] ), Runnable::run )
+            .subscribe( collector );
+        collector.subscription.request( 0 );
+        
+        assertInstanceOf( IllegalArgumentException.class, collector.errors.get( 0 ) );
+    }
+    
+    @Test
+    public void testSingleSubscriber()
+    {
+        ContentPublisher publisher =
+            new ContentPublisher( new ByteArrayInputStream( new byte[ 1 ] ), Runnable::run );
+        publisher.subscribe( new Collector() );
+        Collector second = new Collector();
+        publisher.subscribe( second );
+        
+        assertInstanceOf( IllegalStateException.class, second.errors.get( 0 ) );
+    }
+    
+    private static class Collector implements Flow.Subscriber<ByteBuffer>
+    {
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        
+        private final List<Throwable> errors = new ArrayList<>();
+        
+        private Flow.Subscription subscription;
+        
+        private int chunks;
+        
+        private boolean completed;
+        
+        @Override
+        public void onSubscribe( Flow.Subscription subscription )
+        {
+            this.subscription = subscription;
+        }
+        
+        @Override
+        public void onNext( ByteBuffer item )
+        {
+            chunks++;
+            content.write( item.array(), item.arrayOffset() + item.position(),
+                item.remaining() );
+        }
+        
+        @Override
+        public void onError( Throwable throwable )
+        {
+            errors.add( throwable );
+        }
+        
+        @Override
+        public void onComplete()
+        {
+            completed = true;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.github.argsfxs.deneb.response;
 
+import com.github.argsfxs.deneb.exception.SocketIOException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static com.github.argsfxs.deneb.util.Status.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -251,5 +255,110 @@ public class GeminiResponseFactoryTest
         assertEquals( "foo", ( ( GeminiInputResponse ) response ).getPrompt() );
     }
     
+    @Test
+    public void testUtf8Meta()
+    {
+        String input = "10 Bitte Straße eingeben\r\n";
+        InputStream in =
+            new ByteArrayInputStream( input.getBytes( StandardCharsets.UTF_8 ) );
+        
+        GeminiResponse response = GeminiResponseFactory.create( in );
+        
+        assertEquals( "10 Bitte Straße eingeben", response.getHeader() );
+        assertEquals( "Bitte Straße eingeben",
+            ( ( GeminiInputResponse ) response ).getPrompt() );
+    }
+    
+    @Test
+    public void testContentAfterHeader() throws IOException
+    {
+        StringBuilder body = new StringBuilder();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            body.append( "line " ).append( i ).append( "\r\n" );
+        }
+        String input = "20 text/gemini\r\n" + body;
+        InputStream in =
+            new ByteArrayInputStream( input.getBytes( StandardCharsets.UTF_8 ) );
+        
+        GeminiResponse response = GeminiResponseFactory.create( in );
+        
+        assertEquals( "20 text/gemini", response.getHeader() );
+        assertEquals( body.toString(), new String(
+            ( ( GeminiSuccessResponse ) response ).getContent().readAllBytes(),
+            StandardCharsets.UTF_8 ) );
+    }
+    
+    @Test
+    public void testSingleByteReads() throws IOException
+    {
+        String input = "20 text/plain\r\nfoo\r\nbar";
+        InputStream in = new FilterInputStream(
+            new ByteArrayInputStream( input.getBytes( StandardCharsets.UTF_8 ) ) )
+        {
+            @Override
+            public int read( byte[] b, int off, int len ) throws IOException
+            {
+                return super.read( b, off, Math.min( len, 1 ) );
+            }
+        };
+        
+        GeminiResponse response = GeminiResponseFactory.create( in );
+        
+        assertEquals( "20 text/plain", response.getHeader() );
+        assertEquals( "foo\r\nbar", new String(
+            ( ( GeminiSuccessResponse ) response ).getContent().readAllBytes(),
+            StandardCharsets.UTF_8 ) );
+    }
+    
+    @Test
+    public void testLongHeader()
+    {
+        String meta = "x".repeat( 1024 );
+        String input = "40 " + meta + "\r\n";
+        InputStream in =
+            new ByteArrayInputStream( input.getBytes( StandardCharsets.UTF_8 ) );
+        
+        GeminiResponse response = GeminiResponseFactory.create( in );
+        
+        assertEquals( "40 " + meta, response.getHeader() );
+        assertEquals( TEMPORARY_FAILURE, response.getStatus() );
+        
+        // the header is never terminated
+        InputStream endless = new InputStream()
+        {
+            @Override
+            public int read()
+            {
+                return 'x';
+            }
+        };
+        
+        assertThrows( SocketIOException.class,
+            () -> GeminiResponseFactory.create( endless ) );
+    }
+    
+    @Test
+    public void testSaveTo( @TempDir Path dir ) throws IOException
+    {
+        byte[] content = new byte[ 200000 ];
+        for ( int i = 0; i < content.length; i++ )
+        {
+            content[ i ] = ( byte ) i;
+        }
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        input.write( "20 application/octet-stream\r\n".getBytes( StandardCharsets.UTF_8 ) );
+        input.write( content );
+        Path file = dir.resolve( "content" );
+        Files.write( file, new byte[ 300000 ] );
+        
+        GeminiSuccessResponse response = ( GeminiSuccessResponse ) GeminiResponseFactory.create(
+            new ByteArrayInputStream( input.toByteArray() ) );
+        
+        // the content read together with the header doesn't hide the server stream
+        assertInstanceOf( TransferableContent.class, response.getContent() );
+        assertEquals( content.length, response.saveTo( file ) );
+        assertArrayEquals( content, Files.readAllBytes( file ) );
+    }
     
 }
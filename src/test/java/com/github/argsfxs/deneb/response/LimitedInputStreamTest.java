@@ -0,0 +1,117 @@
+package com.github.argsfxs.deneb.response;
+
+import com.github.argsfxs.deneb.options.RequestOptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LimitedInputStreamTest
+{
+    @Test
+    public void testUnlimited()
+    {
+        InputStream in = new ByteArrayInputStream( new byte[ 0 ] );
+        
+        assertSame( in, LimitedInputStream.wrap( in, new RequestOptions() ) );
+    }
+    
+    @Test
+    public void testMaxLength() throws IOException
+    {
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream in = new LimitedInputStream( new ByteArrayInputStream( new byte[ 100 ] )
+        {
+            @Override
+            public void close()
+            {
+                closed.set( true );
+            }
+        }, 64, 0, 0 );
+        
+        assertEquals( 64, in.read( new byte[ 64 ] ) );
+        IOException e = assertThrows( IOException.class, in::read );
+        assertEquals( "Response content exceeds 64 bytes", e.getMessage() );
+        assertTrue( closed.get() );
+        assertThrows( IOException.class, in::read );
+    }
+    
+    @Test
+    public void testExactLength() throws IOException
+    {
+        InputStream in = new LimitedInputStream( new ByteArrayInputStream( new byte[ 64 ] ),
+            64, 0, 0 );
+        
+        assertEquals( 64, in.readAllBytes().length );
+    }
+    
+    @Test
+    public void testMinRate()
+    {
+        InputStream slow = new InputStream()
+        {
+            @Override
+            public int read() throws IOException
+            {
+                try
+                {
+                    Thread.sleep( 20 );
+                }
+                catch ( InterruptedException e )
+                {
+                    throw new IOException( e );
+                }
+                return 0;
+            }
+        };
+        InputStream in = new LimitedInputStream( slow, 0, 1000,
+            TimeUnit.MILLISECONDS.toNanos( 100 ) );
+        
+        IOException e = assertThrows( IOException.class, () -> {
+            while ( in.read() != -1 )
+            {
+                // read until the rate is checked
+            }
+        } );
+        assertEquals( "Response content received slower than 1000 bytes per second",
+            e.getMessage() );
+    }
+    
+    @Test
+    public void testTransferTo() throws IOException
+    {
+        byte[] content = new byte[ 100 ];
+        for ( int i = 0; i < content.length; i++ )
+        {
+            content[ i ] = ( byte ) i;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel( out );
+        
+        LimitedInputStream in = new LimitedInputStream(
+            new ContentInputStream( content, new ByteArrayInputStream( new byte[ 0 ] ) ),
+            100, 0, 0 );
+        assertEquals( 100, in.transferTo( target ) );
+        assertArrayEquals( content, out.toByteArray() );
+        
+        out.reset();
+        LimitedInputStream limited = new LimitedInputStream(
+            new ContentInputStream( content, new ByteArrayInputStream( new byte[ 0 ] ) ),
+            99, 0, 0 );
+        assertThrows( IOException.class, () -> limited.transferTo( target ) );
+        // nothing beyond the limit is written
+        assertTrue( out.size() <= 99 );
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.argsfxs.deneb.security;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FingerprintTest
+{
+    @Test
+    public void testHex()
+    {
+        byte[] digest = DigestUtils.sha256( "deneb" );
+        Fingerprint fingerprint = Fingerprint.of( digest );
+        
+        assertEquals( DigestUtils.sha256Hex( "deneb" ).toUpperCase(), fingerprint.toHex() );
+        assertArrayEquals( digest, fingerprint.toByteArray() );
+        assertEquals( fingerprint, Fingerprint.fromHex( DigestUtils.sha256Hex( "deneb" ) ) );
+        assertEquals( fingerprint.hashCode(),
+            Fingerprint.fromHex( fingerprint.toHex() ).hashCode() );
+    }
+    
+    @Test
+    public void testEquals()
+    {
+        byte[] digest = DigestUtils.sha256( "deneb" );
+        Fingerprint fingerprint = Fingerprint.of( digest );
+        digest[ 31 ] ^= 1;
+        
+        assertNotEquals( fingerprint, Fingerprint.of( digest ) );
+        assertNotEquals( fingerprint, null );
+    }
+    
+    @Test
+    public void testInvalid()
+    {
+        assertThrows( IllegalArgumentException.class, () -> Fingerprint.of( new byte[ 20 ] ) );
+        assertThrows( IllegalArgumentException.class, () -> Fingerprint.fromHex( "AB" ) );
+        assertThrows( IllegalArgumentException.class,
+            () -> Fingerprint.fromHex( DigestUtils.sha256Hex( "deneb" ).replace( 'a', 'x' ) ) );
+    }
+}
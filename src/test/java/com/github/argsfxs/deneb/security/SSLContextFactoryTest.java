@@ -0,0 +1,59 @@
+package com.github.argsfxs.deneb.security;
+
+import com.github.argsfxs.deneb.options.RequestOptions;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLSessionContext;
+import java.security.GeneralSecurityException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class SSLContextFactoryTest
+{
+    @Test
+    public void sameConfiguration() throws GeneralSecurityException
+    {
+        SSLContextFactory factory = new SSLContextFactory();
+        TrustedCertificateSupplier supplier = ( host, port ) -> null;
+        RequestOptions a = new RequestOptions();
+        a.setValidationEnabled( true );
+        a.setTrustedCertificateSupplier( supplier );
+        RequestOptions b = new RequestOptions();
+        b.setValidationEnabled( true );
+        b.setTrustedCertificateSupplier( supplier );
+        
+        assertSame( factory.getContext( a ), factory.getContext( b ) );
+        assertSame( factory.getSocketFactory( a ), factory.getSocketFactory( b ) );
+    }
+    
+    @Test
+    public void differentConfiguration() throws GeneralSecurityException
+    {
+        SSLContextFactory factory = new SSLContextFactory();
+        RequestOptions a = new RequestOptions();
+        RequestOptions b = new RequestOptions();
+        b.setValidationEnabled( true );
+        
+        assertNotSame( factory.getContext( a ), factory.getContext( b ) );
+        
+        b.setValidationEnabled( false );
+        assertSame( factory.getContext( a ), factory.getContext( b ) );
+    }
+    
+    @Test
+    public void sessionCache() throws GeneralSecurityException
+    {
+        SSLContextFactory factory = new SSLContextFactory();
+        RequestOptions options = new RequestOptions();
+        options.setSessionCacheSize( 10 );
+        options.setSessionTimeout( 300 );
+        
+        SSLSessionContext sessions =
+            factory.getContext( options ).getClientSessionContext();
+        assertEquals( 10, sessions.getSessionCacheSize() );
+        assertEquals( 300, sessions.getSessionTimeout() );
+    }
+    
+}
@@ -0,0 +1,119 @@
+package com.github.argsfxs.deneb.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TrustedCertificateStoreTest
+{
+    @TempDir
+    Path directory;
+    
+    @Test
+    public void testInMemory()
+    {
+        TrustedCertificateStore store = new TrustedCertificateStore();
+        store.accept( certificate( "Example.org", 1965, 0xAB ) );
+        
+        assertEquals( fingerprint( 0xAB ),
+            store.get( "example.org", 1965 ).getBinaryFingerPrint() );
+        assertNull( store.get( "example.org", 1966 ) );
+        assertNull( store.get( "localhost", 1965 ) );
+    }
+    
+    @Test
+    public void testJournal() throws IOException
+    {
+        Path journal = directory.resolve( "known_hosts" );
+        try ( TrustedCertificateStore store = new TrustedCertificateStore( journal ) )
+        {
+            store.accept( certificate( "example.org", 1965, 0xAB ) );
+            store.accept( certificate( "localhost", 1966, 0xCD ) );
+            store.accept( certificate( "example.org", 1965, 0xEF ) );
+        }
+        Files.write( journal, "garbage\n".getBytes( StandardCharsets.UTF_8 ),
+            StandardOpenOption.APPEND );
+        
+        try ( TrustedCertificateStore store = new TrustedCertificateStore( journal ) )
+        {
+            assertEquals( 2, store.size() );
+            TrustedCertificate certificate = store.get( "example.org", 1965 );
+            assertEquals( fingerprint( 0xEF ), certificate.getBinaryFingerPrint() );
+            assertEquals( 1000L, certificate.getExpiryDate().getTime() );
+            assertEquals( fingerprint( 0xCD ),
+                store.get( "localhost", 1966 ).getBinaryFingerPrint() );
+        }
+    }
+    
+    @Test
+    public void testCompaction() throws IOException
+    {
+        Path journal = directory.resolve( "known_hosts" );
+        try ( TrustedCertificateStore store = new TrustedCertificateStore( journal ) )
+        {
+            for ( int i = 0; i < 3000; i++ )
+            {
+                store.accept( certificate( "host" + i % 10, 1965, i ) );
+            }
+            assertTrue( Files.readAllLines( journal ).size() < 2000 );
+            
+            store.compact();
+            assertEquals( 10, Files.readAllLines( journal ).size() );
+        }
+        
+        try ( TrustedCertificateStore store = new TrustedCertificateStore( journal ) )
+        {
+            assertEquals( 10, store.size() );
+            assertEquals( fingerprint( 2999 ), store.get( "host9", 1965 ).getBinaryFingerPrint() );
+        }
+    }
+    
+    @Test
+    public void testPeriodicCompaction() throws IOException, InterruptedException
+    {
+        Path journal = directory.resolve( "known_hosts" );
+        try ( TrustedCertificateStore store = new TrustedCertificateStore( journal, 1 ) )
+        {
+            store.accept( certificate( "example.org", 1965, 0xAB ) );
+            store.accept( certificate( "example.org", 1965, 0xCD ) );
+            assertEquals( 2, Files.readAllLines( journal ).size() );
+            
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 10 );
+            while ( Files.readAllLines( journal ).size() > 1 )
+            {
+                assertTrue( System.nanoTime() - deadline < 0 );
+                Thread.sleep( 50 );
+            }
+        }
+        
+        try ( TrustedCertificateStore store = new TrustedCertificateStore( journal ) )
+        {
+            assertEquals( fingerprint( 0xCD ),
+                store.get( "example.org", 1965 ).getBinaryFingerPrint() );
+        }
+    }
+    
+    private static TrustedCertificate certificate( String host, int port, int fingerprint )
+    {
+        return new TrustedCertificate( host, port, new Date( 1000L ), fingerprint( fingerprint ) );
+    }
+    
+    private static Fingerprint fingerprint( int value )
+    {
+        byte[] digest = new byte[ Fingerprint.LENGTH ];
+        ByteBuffer.wrap( digest ).putInt( Fingerprint.LENGTH - 4, value );
+        return Fingerprint.of( digest );
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.argsfxs.deneb.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TrustedCertificateTest
+{
+    private static final String FINGERPRINT =
+        "9F86D081884C7D659A2FEAA0C55AD015A3BF4F1B2B0B822CD15D6C15B0F00A08";
+    
+    // new TrustedCertificate( "localhost", 1965, new Date( 1700000000000L ), FINGERPRINT )
+    // serialized before the fingerprint was kept in binary form
+    private static final String SERIALIZED =
+        "rO0ABXNyADRjb20uZ2l0aHViLmFyZ3NmeHMuZGVuZWIuc2VjdXJpdHkuVHJ1c3RlZENlcnRpZmlj"
+            + "YXRlAAAAAAAAAAECAARJAARwb3J0TAAKZXhwaXJ5RGF0ZXQAEExqYXZhL3V0aWwvRGF0ZTtMAAtm"
+            + "aW5nZXJQcmludHQAEkxqYXZhL2xhbmcvU3RyaW5nO0wABGhvc3RxAH4AAnhwAAAHrXNyAA5qYXZh"
+            + "LnV0aWwuRGF0ZWhqgQFLWXQZAwAAeHB3CAAAAYvP5WgAeHQAQDlGODZEMDgxODg0QzdENjU5QTJG"
+            + "RUFBMEM1NUFEMDE1QTNCRjRGMUIyQjBCODIyQ0QxNUQ2QzE1QjBGMDBBMDh0AAlsb2NhbGhvc3Q=";
+    
+    @Test
+    public void testReadOldFormat() throws IOException, ClassNotFoundException
+    {
+        byte[] serialized = Base64.getDecoder().decode( SERIALIZED );
+        TrustedCertificate tc = read( serialized );
+        
+        assertEquals( "localhost", tc.getHost() );
+        assertEquals( 1965, tc.getPort() );
+        assertEquals( new Date( 1700000000000L ), tc.getExpiryDate() );
+        assertEquals( FINGERPRINT, tc.getFingerPrint() );
+        assertEquals( Fingerprint.fromHex( FINGERPRINT ), tc.getBinaryFingerPrint() );
+        
+        // written with the old fields again
+        TrustedCertificate copy = read( write( tc ) );
+        assertEquals( new Date( 1700000000000L ), copy.getExpiryDate() );
+        assertEquals( Fingerprint.fromHex( FINGERPRINT ), copy.getBinaryFingerPrint() );
+    }
+    
+    @Test
+    public void testRoundTrip() throws IOException, ClassNotFoundException
+    {
+        TrustedCertificate tc = read( write(
+            new TrustedCertificate( "localhost", 1965, null, "AB:CD" ) ) );
+        
+        assertNull( tc.getExpiryDate() );
+        assertEquals( "AB:CD", tc.getFingerPrint() );
+        assertNull( tc.getBinaryFingerPrint() );
+    }
+    
+    private static byte[] write( TrustedCertificate tc ) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+        {
+            out.writeObject( tc );
+        }
+        return bytes.toByteArray();
+    }
+    
+    private static TrustedCertificate read( byte[] serialized )
+        throws IOException, ClassNotFoundException
+    {
+        try ( ObjectInputStream in =
+                  new ObjectInputStream( new ByteArrayInputStream( serialized ) ) )
+        {
+            return ( TrustedCertificate ) in.readObject();
+        }
+    }
+}
@@ -3,12 +3,14 @@ package com.github.argsfxs.deneb.security;
 import com.github.argsfxs.deneb.exception.CertificateValidationException;
 import com.github.argsfxs.deneb.exception.InvalidCertificateException;
 import com.github.argsfxs.deneb.options.RequestOptions;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.net.ssl.SSLEngine;
 import javax.security.auth.x500.X500Principal;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
@@ -17,12 +19,19 @@ import java.time.ZoneId;
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith( MockitoExtension.class )
 public class ValidationTrustManagerTest
 {
+    private static final Fingerprint FINGERPRINT =
+        Fingerprint.of( DigestUtils.sha256( "e04fd020ea3a9610a2d808002b30309d".getBytes() ) );
+    
+    private static final Fingerprint OTHER_FINGERPRINT = Fingerprint.of( new byte[ 32 ] );
     
     @Mock
     private X509Certificate cert;
@@ -42,6 +51,9 @@ public class ValidationTrustManagerTest
     @Mock
     private TrustedCertificate tc;
     
+    @Mock
+    private SSLEngine engine;
+    
     @BeforeEach
     public void setUp()
     {
@@ -156,7 +168,7 @@ public class ValidationTrustManagerTest
             "e04fd020ea3a9610a2d808002b30309d".getBytes() );
         when( options.getTrustedCertificateSupplier() ).thenReturn( supplier );
         when( supplier.get( "foo.bar", 1965 ) ).thenReturn( tc );
-        when( tc.getFingerPrint() ).thenReturn( "foo" );
+        when( tc.getBinaryFingerPrint() ).thenReturn( OTHER_FINGERPRINT );
         when( options.isCertificateRenewalCheckEnabled() ).thenReturn( true );
         when( options.getCertificateGracePeriod() ).thenReturn( 30 );
         when( tc.getExpiryDate() ).thenReturn( Date.from( LocalDate.now().plusDays( 10 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
@@ -178,7 +190,7 @@ public class ValidationTrustManagerTest
             "e04fd020ea3a9610a2d808002b30309d".getBytes() );
         when( options.getTrustedCertificateSupplier() ).thenReturn( supplier );
         when( supplier.get( "foo.bar", 1965 ) ).thenReturn( tc );
-        when( tc.getFingerPrint() ).thenReturn( "foo" );
+        when( tc.getBinaryFingerPrint() ).thenReturn( OTHER_FINGERPRINT );
         when( options.isCertificateRenewalCheckEnabled() ).thenReturn( true );
         when( options.getCertificateGracePeriod() ).thenReturn( 30 );
         when( tc.getExpiryDate() ).thenReturn( Date.from( LocalDate.now().plusDays( 100 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
@@ -193,6 +205,36 @@ public class ValidationTrustManagerTest
             "MITM attack!", ice.getMessage() );
     }
     
+    @Test
+    public void legacyTrustedCertificate() throws CertificateEncodingException
+    {
+        when( cert.getSubjectX500Principal() ).thenReturn( principal );
+        when( principal.getName() ).thenReturn( "CN=foo.bar" );
+        when( cert.getNotBefore() ).thenReturn( Date.from( LocalDate.now().minusDays( 10 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
+        when( cert.getNotAfter() ).thenReturn( Date.from( LocalDate.now().plusDays( 10 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
+        when( cert.getEncoded() ).thenReturn(
+            "e04fd020ea3a9610a2d808002b30309d".getBytes() );
+        // neither a SHA-256 fingerprint nor an expiry date, as in older databases
+        TrustedCertificate legacy = new TrustedCertificate( "foo.bar", 1965, null, "AB:CD" );
+        assertEquals( "AB:CD", legacy.getFingerPrint() );
+        assertNull( legacy.getBinaryFingerPrint() );
+        assertNull( legacy.getExpiryDate() );
+        when( options.getTrustedCertificateSupplier() ).thenReturn( supplier );
+        when( supplier.get( "foo.bar", 1965 ) ).thenReturn( legacy );
+        ValidationTrustManager vtm = new ValidationTrustManager( "foo.bar",
+            1965, options );
+        X509Certificate[] chain = { ( cert ) };
+        
+        vtm.checkServerTrusted( chain, null );
+        
+        when( options.isCertificateRenewalCheckEnabled() ).thenReturn( true );
+        InvalidCertificateException ice =
+            assertThrows( InvalidCertificateException.class,
+                () -> vtm.checkServerTrusted( chain, null ) );
+        assertEquals( "Certificate renewal can't be checked without the expiry date of the " +
+            "trusted certificate.", ice.getMessage() );
+    }
+    
     @Test
     public void success() throws CertificateEncodingException
     {
@@ -204,8 +246,7 @@ public class ValidationTrustManagerTest
             "e04fd020ea3a9610a2d808002b30309d".getBytes() );
         when( options.getTrustedCertificateSupplier() ).thenReturn( supplier );
         when( supplier.get( "foo.bar", 1965 ) ).thenReturn( tc );
-        when( tc.getFingerPrint() ).thenReturn(
-            "e04fd020ea3a9610a2d808002b30309d" );
+        when( tc.getBinaryFingerPrint() ).thenReturn( FINGERPRINT );
         ValidationTrustManager vtm = new ValidationTrustManager( "foo.bar",
             1965, options );
         X509Certificate[] chain = { ( cert ) };
@@ -213,4 +254,63 @@ public class ValidationTrustManagerTest
         vtm.checkServerTrusted( chain, null );
     }
     
+    @Test
+    public void hostFromEngine() throws CertificateEncodingException
+    {
+        when( engine.getPeerHost() ).thenReturn( "foo.bar" );
+        when( engine.getPeerPort() ).thenReturn( 1966 );
+        when( cert.getSubjectX500Principal() ).thenReturn( principal );
+        when( principal.getName() ).thenReturn( "CN=foo.bar" );
+        when( cert.getNotBefore() ).thenReturn( Date.from( LocalDate.now().minusDays( 10 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
+        when( cert.getNotAfter() ).thenReturn( Date.from( LocalDate.now().plusDays( 10 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
+        when( cert.getEncoded() ).thenReturn(
+            "e04fd020ea3a9610a2d808002b30309d".getBytes() );
+        when( options.getTrustedCertificateSupplier() ).thenReturn( supplier );
+        when( supplier.get( "foo.bar", 1966 ) ).thenReturn( tc );
+        when( tc.getBinaryFingerPrint() ).thenReturn( FINGERPRINT );
+        ValidationTrustManager vtm = new ValidationTrustManager( options );
+        X509Certificate[] chain = { ( cert ) };
+        
+        vtm.checkServerTrusted( chain, null, engine );
+    }
+    
+    @Test
+    public void wrongHostFromEngine() throws CertificateEncodingException
+    {
+        when( engine.getPeerHost() ).thenReturn( "foo.baz" );
+        when( cert.getSubjectX500Principal() ).thenReturn( principal );
+        when( principal.getName() ).thenReturn( "CN=foo.bar" );
+        when( cert.getEncoded() ).thenReturn(
+            "e04fd020ea3a9610a2d808002b30309d".getBytes() );
+        ValidationTrustManager vtm = new ValidationTrustManager( options );
+        X509Certificate[] chain = { ( cert ) };
+        
+        InvalidCertificateException ice =
+            assertThrows( InvalidCertificateException.class,
+                () -> vtm.checkServerTrusted( chain, null, engine ) );
+        assertEquals( "Certificate host doesn't match!", ice.getMessage() );
+    }
+    
+    @Test
+    public void memoizedCertificate() throws CertificateEncodingException
+    {
+        when( engine.getPeerHost() ).thenReturn( "foo.bar" );
+        when( engine.getPeerPort() ).thenReturn( 1965 );
+        when( cert.getSubjectX500Principal() ).thenReturn( principal );
+        when( principal.getName() ).thenReturn( "CN=foo.bar" );
+        when( cert.getNotBefore() ).thenReturn( Date.from( LocalDate.now().minusDays( 10 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
+        when( cert.getNotAfter() ).thenReturn( Date.from( LocalDate.now().plusDays( 10 ).atStartOfDay().atZone( ZoneId.systemDefault() ).toInstant() ) );
+        when( cert.getEncoded() ).thenReturn(
+            "e04fd020ea3a9610a2d808002b30309d".getBytes() );
+        when( options.getTrustedCertificateSupplier() ).thenReturn( supplier );
+        when( supplier.get( "foo.bar", 1965 ) ).thenReturn( tc );
+        when( tc.getBinaryFingerPrint() ).thenReturn( FINGERPRINT );
+        ValidationTrustManager vtm = new ValidationTrustManager( options );
+        X509Certificate[] chain = { ( cert ) };
+        
+        vtm.checkServerTrusted( chain, null, engine );
+        vtm.checkServerTrusted( chain, null, engine );
+        verify( cert, times( 1 ) ).getEncoded();
+    }
+    
 }
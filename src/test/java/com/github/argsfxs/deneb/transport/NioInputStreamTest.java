@@ -0,0 +1,124 @@
+package com.github.argsfxs.deneb.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class NioInputStreamTest
+{
+    @Test
+    public void backpressure() throws IOException
+    {
+        AtomicInteger space = new AtomicInteger();
+        NioInputStream in = new NioInputStream( 8, space::incrementAndGet, () -> {
+        } );
+        ByteBuffer src =
+            ByteBuffer.wrap( "0123456789".getBytes( StandardCharsets.US_ASCII ) );
+        
+        assertEquals( 8, in.write( src ) );
+        assertEquals( 2, src.remaining() );
+        
+        byte[] b = new byte[ 3 ];
+        assertEquals( 3, in.read( b ) );
+        assertEquals( "012", new String( b, StandardCharsets.US_ASCII ) );
+        assertEquals( 0, space.get() );
+        assertEquals( 3, in.read( b ) );
+        assertEquals( 1, space.get() );
+        
+        // wraps around the end of the buffer
+        assertEquals( 2, in.write( src ) );
+        in.finish();
+        assertEquals( "6789", new String( in.readAllBytes(), StandardCharsets.US_ASCII ) );
+        assertEquals( -1, in.read() );
+    }
+    
+    @Test
+    public void singleBytes() throws IOException
+    {
+        AtomicInteger space = new AtomicInteger();
+        NioInputStream in = new NioInputStream( 4, space::incrementAndGet, () -> {
+        } );
+        ByteBuffer src = ByteBuffer.wrap( "012345".getBytes( StandardCharsets.US_ASCII ) );
+        
+        assertEquals( 4, in.write( src ) );
+        assertEquals( '0', in.read() );
+        assertEquals( '1', in.read() );
+        assertEquals( 1, space.get() );
+        
+        // wraps around the end of the buffer
+        assertEquals( 2, in.write( src ) );
+        in.finish();
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ( ( b = in.read() ) != -1 )
+        {
+            sb.append( ( char ) b );
+        }
+        assertEquals( "2345", sb.toString() );
+    }
+    
+    @Test
+    public void failure() throws IOException
+    {
+        NioInputStream in = new NioInputStream( 8, () -> {
+        }, () -> {
+        } );
+        in.write( ByteBuffer.wrap( new byte[]{ 42 } ) );
+        in.fail( new IOException( "reset" ) );
+        
+        assertEquals( 42, in.read() );
+        IOException e = assertThrows( IOException.class, in::read );
+        assertEquals( "reset", e.getMessage() );
+    }
+    
+    @Test
+    public void close()
+    {
+        AtomicInteger closed = new AtomicInteger();
+        NioInputStream in = new NioInputStream( 8, () -> {
+        }, closed::incrementAndGet );
+        
+        in.close();
+        in.close();
+        
+        assertEquals( 1, closed.get() );
+        assertThrows( IOException.class, in::read );
+    }
+    
+    @Test
+    public void transferTo() throws Exception
+    {
+        AtomicInteger space = new AtomicInteger();
+        NioInputStream in = new NioInputStream( 8, space::incrementAndGet, () -> {
+        } );
+        ByteBuffer src =
+            ByteBuffer.wrap( "0123456789abcdef".getBytes( StandardCharsets.US_ASCII ) );
+        in.write( src );
+        assertEquals( 3, in.read( new byte[ 3 ] ) );
+        
+        // the producer refills the buffer whenever the consumer frees space
+        Thread producer = new Thread( () -> {
+            while ( src.hasRemaining() )
+            {
+                in.write( src );
+                Thread.yield();
+            }
+            in.finish();
+        } );
+        producer.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        
+        assertEquals( 13, in.transferTo( Channels.newChannel( out ) ) );
+        assertEquals( "3456789abcdef", out.toString( "US-ASCII" ) );
+        producer.join();
+    }
+    
+}
@@ -0,0 +1,38 @@
+package com.github.argsfxs.deneb.transport;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SelectorLoopTest
+{
+    @Test
+    public void testRejectAfterClose() throws IOException, InterruptedException
+    {
+        SelectorLoop loop = new SelectorLoop( "test-selector" );
+        CountDownLatch ran = new CountDownLatch( 1 );
+        assertTrue( loop.execute( ran::countDown ) );
+        assertTrue( ran.await( 5, TimeUnit.SECONDS ) );
+        
+        loop.close();
+        AtomicInteger runs = new AtomicInteger();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos( 5 );
+        int accepted = 0;
+        // tasks are run until the loop has stopped, from then on they are rejected
+        while ( loop.execute( runs::incrementAndGet ) )
+        {
+            accepted++;
+            assertTrue( System.nanoTime() - deadline < 0 );
+            Thread.sleep( 1 );
+        }
+        assertFalse( loop.execute( runs::incrementAndGet ) );
+        assertEquals( accepted, runs.get() );
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class MIMETypeTest
 {
@@ -108,4 +110,39 @@ public class MIMETypeTest
         assertEquals( a, b );
     }
     
+    @Test
+    public void testCached()
+    {
+        assertSame( MIMEType.from( "text/gemini; charset=utf-8" ),
+            MIMEType.from( "text/gemini; charset=utf-8" ) );
+        assertSame( MIMEType.from( "text/x-foo; charset=utf-8" ),
+            MIMEType.from( "text/x-foo; charset=utf-8" ) );
+    }
+    
+    @Test
+    public void testImmutableParameters()
+    {
+        MIMEType m = MIMEType.from( "text/gemini; charset=utf-8" );
+        assertThrows( UnsupportedOperationException.class,
+            () -> m.getParameters().put( "lang", "en" ) );
+    }
+    
+    @Test
+    public void testSpecialValues()
+    {
+        MIMEType m = MIMEType.from( "text/gemini; lang=\"en;de\"; charset=utf-8" );
+        assertEquals( "gemini", m.getSubType() );
+        assertEquals( 2, m.getParameters().size() );
+        assertEquals( "en;de", m.getParameters().get( "lang" ) );
+        assertEquals( "utf-8", m.getParameters().get( "charset" ) );
+        
+        m = MIMEType.from( "application/x-foo; profile=a/b" );
+        assertEquals( "application", m.getMediaType() );
+        assertEquals( "x-foo", m.getSubType() );
+        assertEquals( "a/b", m.getParameters().get( "profile" ) );
+        
+        assertNull( MIMEType.from( "text/gemini/foo" ) );
+        assertNull( MIMEType.from( "/gemini" ) );
+    }
+    
 }
@@ -44,6 +44,30 @@ public class StatusTest
         assertEquals( Status.SUCCESS, Status.fromHeader( "20" ) );
     }
     
+    @Test
+    public void fromHeaderNoDigit()
+    {
+        assertEquals( Status.INVALID, Status.fromHeader( "2x text/gemini" ) );
+        assertEquals( Status.INVALID, Status.fromHeader( "+2" ) );
+        assertEquals( Status.INVALID, Status.fromHeader( null ) );
+    }
+    
+    @Test
+    public void fromHeaderUnknownCode()
+    {
+        assertEquals( Status.TEMPORARY_FAILURE, Status.fromHeader( "48 foo" ) );
+        assertEquals( Status.INVALID, Status.fromHeader( "05" ) );
+    }
+    
+    @Test
+    public void fromCodeOutOfRange()
+    {
+        assertEquals( Status.INVALID, Status.fromCode( -1 ) );
+        assertEquals( Status.INVALID, Status.fromCode( 5 ) );
+        assertEquals( Status.INVALID, Status.fromCode( 75 ) );
+        assertEquals( Status.INVALID, Status.fromCode( 100 ) );
+    }
+    
     @Test
     public void fromCode()
     {
@@ -0,0 +1,28 @@
+package com.github.argsfxs.deneb.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UrlNormalizerTest
+{
+    @Test
+    public void testNormalize()
+    {
+        assertEquals( "gemini://example.org/",
+            UrlNormalizer.normalize( "GEMINI://Example.ORG", 1965 ) );
+        assertEquals( "gemini://example.org/",
+            UrlNormalizer.normalize( "gemini://example.org:1965/", 1965 ) );
+        assertEquals( "gemini://example.org:1966/a?b%20c",
+            UrlNormalizer.normalize( "gemini://example.org/a?b%20c#fragment", 1966 ) );
+        assertEquals( "gemini://example.org/Path",
+            UrlNormalizer.normalize( "gemini://example.org:1965/Path", 1966 ) );
+    }
+    
+    @Test
+    public void testInvalid()
+    {
+        assertEquals( "not a url", UrlNormalizer.normalize( "not a url", 1965 ) );
+        assertEquals( "/relative", UrlNormalizer.normalize( "/relative", 1965 ) );
+    }
+}